@@ -0,0 +1,40 @@
+package sk.stuba.fiit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+public class Fixtures {
+
+    public static final String CSFD_FILM = "csfd_film.html";
+    public static final String IMDB_TITLE = "imdb_title.html";
+    public static final String IMDB_TITLE_CAST = "imdb_title_cast.html";
+    public static final String IMDB_TITLE_SUMMARY = "imdb_title_summary.html";
+
+    private Fixtures() {
+    }
+
+    public static byte[] bytes(String name) {
+        try (InputStream is = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Missing fixture " + name + ".");
+            }
+
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = is.read(buffer)) > 0;) {
+                os.write(buffer, 0, n);
+            }
+
+            return os.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String string(String name) {
+        return new String(bytes(name), StandardCharsets.UTF_8);
+    }
+}
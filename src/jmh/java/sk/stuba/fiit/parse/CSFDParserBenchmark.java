@@ -0,0 +1,56 @@
+package sk.stuba.fiit.parse;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.Fixtures;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CSFDParserBenchmark {
+
+    private static final int FILM_ID = 5954;
+
+    private final CSFDParser parser = new CSFDParser(1, 1_000);
+
+    private String filmHtml;
+    private Extraction film;
+
+    @Setup
+    public void setUp() {
+        filmHtml = Fixtures.string(Fixtures.CSFD_FILM);
+        film = CSFDParser.FILM_FIELDS.extract(Jsoup.parse(filmHtml));
+    }
+
+    @Benchmark
+    public Optional<JsonNode> parsePage() {
+        return parser.parsePage(FILM_ID, filmHtml);
+    }
+
+    @Benchmark
+    public Extraction extractFilmFields() {
+        return CSFDParser.FILM_FIELDS.extract(Jsoup.parse(filmHtml));
+    }
+
+    @Benchmark
+    public JsonNode parseFilm() {
+        return parser.parseFilm(FILM_ID, film);
+    }
+
+    @Benchmark
+    public JsonNode getFilmComments() {
+        return parser.getFilmComments(film);
+    }
+}
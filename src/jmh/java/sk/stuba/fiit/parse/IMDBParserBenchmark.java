@@ -0,0 +1,60 @@
+package sk.stuba.fiit.parse;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.Fixtures;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IMDBParserBenchmark {
+
+    private final IMDBParser parser = new IMDBParser(1, 1_000);
+
+    private byte[] titleHtml;
+    private String titleString;
+    private String castString;
+    private String summaryString;
+
+    private Optional<Document> castDoc;
+    private Optional<Document> summaryDoc;
+
+    @Setup
+    public void setUp() {
+        titleHtml = Fixtures.bytes(Fixtures.IMDB_TITLE);
+        titleString = Fixtures.string(Fixtures.IMDB_TITLE);
+        castString = Fixtures.string(Fixtures.IMDB_TITLE_CAST);
+        summaryString = Fixtures.string(Fixtures.IMDB_TITLE_SUMMARY);
+
+        castDoc = Optional.of(Jsoup.parse(castString));
+        summaryDoc = Optional.of(Jsoup.parse(summaryString));
+    }
+
+    @Benchmark
+    public JsonNode parseTitleFromBytes() {
+        return parser.parseTitle(titleHtml, castDoc, summaryDoc);
+    }
+
+    @Benchmark
+    public JsonNode parseTitleFromDocument() {
+        return parser.parseTitle(Jsoup.parse(titleString), castDoc, summaryDoc);
+    }
+
+    @Benchmark
+    public JsonNode parseTitleWithSubPages() {
+        return parser.parseTitle(titleHtml, Optional.of(Jsoup.parse(castString)), Optional.of(Jsoup.parse(summaryString)));
+    }
+}
@@ -0,0 +1,129 @@
+package sk.stuba.fiit.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import sk.stuba.fiit.Fixtures;
+import sk.stuba.fiit.parse.CSFDParser;
+import sk.stuba.fiit.parse.IMDBParser;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchIndexBenchmark {
+
+    private static final int FILM_ID = 5954;
+
+    private static final String SPARSE_TERM = "sequel";
+    private static final int SPARSE_EVERY = 64;
+    private static final String MEDIUM_TERM = "remastered";
+    private static final int MEDIUM_EVERY = 3;
+
+    @Param({ "100000" })
+    private int documents;
+
+    private Path indexDir;
+    private SearchIndex index;
+
+    private SearchQuery conjunction;
+    private SearchQuery text;
+    private SearchQuery filtered;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectNode film = (ObjectNode) new CSFDParser(1, 1_000)
+                .parsePage(FILM_ID, Fixtures.string(Fixtures.CSFD_FILM)).get();
+        ObjectNode title = (ObjectNode) new IMDBParser(1, 1_000).parseTitle(Fixtures.bytes(Fixtures.IMDB_TITLE),
+                Optional.of(Jsoup.parse(Fixtures.string(Fixtures.IMDB_TITLE_CAST))),
+                Optional.of(Jsoup.parse(Fixtures.string(Fixtures.IMDB_TITLE_SUMMARY))));
+
+        indexDir = Files.createTempDirectory("search-bench");
+        try (SearchIndexWriter writer = SearchIndexWriter.create(indexDir)) {
+            for (int i = 0; i < documents; i++) {
+                writer.add(i % 2 == 0 ? getFilm(film, i) : getTitle(title, i));
+            }
+        }
+        index = SearchIndex.open(indexDir);
+
+        List<String> common = Analyzer.tokenize(film.path("nazov").asText());
+        String commonTerm = common.get(0);
+
+        conjunction = SearchQuery.builder()//
+                .must(SearchField.NAME, commonTerm)//
+                .must(SearchField.NAME, SPARSE_TERM)//
+                .build();
+        text = SearchQuery.text(String.join(" ", common) + " " + MEDIUM_TERM + " " + SPARSE_TERM);
+        filtered = SearchQuery.builder()//
+                .must(SearchField.NAME, MEDIUM_TERM)//
+                .mustNot(SearchField.NAME, SPARSE_TERM)//
+                .years(1990, 1999)//
+                .build();
+    }
+
+    private static ObjectNode getFilm(ObjectNode film, int i) {
+        ObjectNode copy = film.deepCopy();
+        copy.put("id", String.valueOf(i));
+        copy.put("nazov", film.path("nazov").asText() + getSuffix(i));
+        copy.put("rok", String.valueOf(getYear(i)));
+
+        return copy;
+    }
+
+    private static ObjectNode getTitle(ObjectNode title, int i) {
+        ObjectNode copy = title.deepCopy();
+        copy.put("url", "/title/tt" + i + "/");
+        copy.put("name", title.path("name").asText() + getSuffix(i));
+        copy.put("publishDate", getYear(i) + "-01-01");
+
+        return copy;
+    }
+
+    private static String getSuffix(int i) {
+        return (i % MEDIUM_EVERY == 0 ? " " + MEDIUM_TERM : "") + (i % SPARSE_EVERY == 0 ? " " + SPARSE_TERM : "");
+    }
+
+    private static int getYear(int i) {
+        return 1950 + i % 70;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(indexDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(v -> v.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<SearchHit> conjunction() {
+        return index.search(conjunction, 10);
+    }
+
+    @Benchmark
+    public List<SearchHit> text() {
+        return index.search(text, 10);
+    }
+
+    @Benchmark
+    public List<SearchHit> filtered() {
+        return index.search(filtered, 10);
+    }
+}
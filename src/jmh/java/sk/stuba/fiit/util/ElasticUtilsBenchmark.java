@@ -0,0 +1,68 @@
+package sk.stuba.fiit.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.Fixtures;
+import sk.stuba.fiit.parse.IMDBParser;
+import sk.stuba.fiit.parse.JsonBatchWriter;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ElasticUtilsBenchmark {
+
+    @Param({ "1000" })
+    private int records;
+
+    private final ElasticUtils elasticUtils = new ElasticUtils();
+
+    private Path workDir;
+    private Path parsedFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("bulk-bench");
+
+        JsonNode title = new IMDBParser(1, records).parseTitle(Fixtures.bytes(Fixtures.IMDB_TITLE),
+                Optional.of(Jsoup.parse(Fixtures.string(Fixtures.IMDB_TITLE_CAST))),
+                Optional.of(Jsoup.parse(Fixtures.string(Fixtures.IMDB_TITLE_SUMMARY))));
+
+        try (JsonBatchWriter writer = new JsonBatchWriter(workDir, "titles_", records)) {
+            for (int i = 0; i < records; i++) {
+                writer.write(title);
+            }
+        }
+        parsedFile = workDir.resolve("titles_1.json");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(workDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(v -> v.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void prepareBulkJson() throws IOException {
+        elasticUtils.prepareBulkJson(parsedFile, workDir, "title");
+    }
+}
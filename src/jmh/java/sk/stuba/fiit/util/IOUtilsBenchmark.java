@@ -0,0 +1,52 @@
+package sk.stuba.fiit.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import sk.stuba.fiit.Fixtures;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IOUtilsBenchmark {
+
+    private String page;
+    private Path readPath;
+    private Path writePath;
+
+    @Setup
+    public void setUp() throws IOException {
+        page = Fixtures.string(Fixtures.IMDB_TITLE);
+
+        readPath = Files.createTempFile("io-bench-read", ".html");
+        writePath = Files.createTempFile("io-bench-write", ".html");
+        Files.write(readPath, Fixtures.bytes(Fixtures.IMDB_TITLE));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(readPath);
+        Files.deleteIfExists(writePath);
+    }
+
+    @Benchmark
+    public String readFile() throws IOException {
+        return IOUtils.readFile(readPath);
+    }
+
+    @Benchmark
+    public void writeToFile() throws IOException {
+        IOUtils.writeToFile(writePath, page);
+    }
+}
@@ -4,18 +4,53 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.metrics.MetricsReporter;
 import sk.stuba.fiit.util.ElasticUtils;
 
 public class MainClass {
+
+    private static final String HTTP_MAX_CONNECTIONS = "http.maxConnections";
+
     public static void main(String[] args) throws IOException, InterruptedException {
+        if (System.getProperty(HTTP_MAX_CONNECTIONS) == null) {
+            System.setProperty(HTTP_MAX_CONNECTIONS, "64");
+        }
 
         long start = System.currentTimeMillis();
+        MetricsReporter reporter = Metrics.get().startReporting(10);
 
         // Crawler crawler = new IMDBCrawler();
         // Parser parser = new IMDBParser();
 
         // crawler.crawlAndSave();
         // parser.parseAll();
+
+        // try (RecordSink sink = new CompositeSink(new BulkFileSink(Paths.get("src/main/resources/data/imdb/bulk"),
+        //         "titles_", 5_000, "title"), new ElasticUtils().createSink("title"))) {
+        //     new IMDBParser().parseAll(sink);
+        // }
+
+        // new StreamingCrawl().crawlAndParseIMDB(Paths.get("src/main/resources/data/imdb/parsed"));
+
+        // FilmMatcher.link(Paths.get("src/main/resources/data/csfd/parsed"), Paths.get("src/main/resources/data/imdb/parsed"),
+        //         Paths.get("src/main/resources/data/links"), Runtime.getRuntime().availableProcessors(), 1_000);
+
+        // try (SearchIndexWriter writer = SearchIndexWriter.create(Paths.get("src/main/resources/data/index"))) {
+        //     writer.addAll(Paths.get("src/main/resources/data/csfd/parsed"), "csfd_films_");
+        //     writer.addAll(Paths.get("src/main/resources/data/imdb/parsed"), "titles_");
+        // }
+        // System.out.println(SearchIndex.open(Paths.get("src/main/resources/data/index")).search("matrix", 10));
+
+        // coordinator
+        // LeaseCoordinator leases = new CSFDCrawler().createLeases(Paths.get("src/main/resources/data/csfd/leases.tsv"));
+        // try (LeaseServer server = LeaseServer.start(leases, InetAddress.getByName("10.0.0.1"), 8765)) {
+        //     leases.awaitFinished(10_000);
+        // }
+        // worker
+        // new CSFDCrawler().crawlLeased(new RemoteLeaseCoordinator("http://coordinator:8765"));
+
+        // CSFDCrawler.discovery().crawlAndSave();
         
         ElasticUtils utils = new ElasticUtils();
         
@@ -25,6 +60,7 @@ public class MainClass {
         // utils.prepareBulkJsons(srcPath, destPath);
         utils.loadBulksToElastic(Paths.get("src/main/resources/data/imdb/bulk"));
 
+        reporter.close();
         long duration = System.currentTimeMillis() - start;
 
         System.out.println("Execution time: " + duration / 1000.0 + "s.");
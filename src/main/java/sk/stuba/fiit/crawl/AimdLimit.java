@@ -0,0 +1,126 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.concurrent.TimeUnit;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class AimdLimit {
+
+    public enum Outcome {
+        SUCCESS, DROPPED
+    }
+
+    private static final double SHORT_ALPHA = 0.2;
+    private static final double LONG_ALPHA = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final Counter increases;
+    private final Counter decreases;
+    private final Counter droppedDecreases;
+    private final Counter latencyDecreases;
+
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+    private long lastDecrease;
+
+    public AimdLimit(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            double latencyTolerance) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "Invalid limits " + minLimit + " <= " + initialLimit + " <= " + maxLimit + ".");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be in (0, 1), was " + backoffRatio + ".");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = initialLimit;
+        this.lastDecrease = System.nanoTime() - TimeUnit.MINUTES.toNanos(1);
+
+        this.increases = Metrics.counter(name + ".limit.increases");
+        this.decreases = Metrics.counter(name + ".limit.decreases");
+        this.droppedDecreases = Metrics.counter(name + ".limit.decreases.dropped");
+        this.latencyDecreases = Metrics.counter(name + ".limit.decreases.latency");
+        Metrics.gauge(name + ".limit", this::getLimit);
+        Metrics.gauge(name + ".inflight", this::getInFlight);
+    }
+
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= getLimit()) {
+            wait();
+        }
+
+        inFlight++;
+    }
+
+    public synchronized void cancel() {
+        inFlight--;
+        notifyAll();
+    }
+
+    public synchronized void release(long latencyNanos, Outcome outcome) {
+        inFlight--;
+
+        long started = System.nanoTime() - latencyNanos;
+        if (outcome == Outcome.DROPPED) {
+            decrease(started, droppedDecreases);
+        } else if (isLatencySpike(latencyNanos)) {
+            decrease(started, latencyDecreases);
+        } else if (inFlight + 1 >= limit / 2 && limit < maxLimit) {
+            int before = getLimit();
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            if (getLimit() > before) {
+                increases.inc();
+            }
+        }
+
+        notifyAll();
+    }
+
+    private boolean isLatencySpike(long latencyNanos) {
+        if (longLatency == 0) {
+            shortLatency = latencyNanos;
+            longLatency = latencyNanos;
+            return false;
+        }
+
+        shortLatency += (latencyNanos - shortLatency) * SHORT_ALPHA;
+        longLatency += (latencyNanos - longLatency) * LONG_ALPHA;
+
+        return shortLatency > longLatency * latencyTolerance;
+    }
+
+    private void decrease(long started, Counter cause) {
+        if (started - lastDecrease < 0) {
+            return;
+        }
+
+        int before = getLimit();
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastDecrease = System.nanoTime();
+        shortLatency = longLatency;
+
+        if (getLimit() < before) {
+            decreases.inc();
+            cause.inc();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
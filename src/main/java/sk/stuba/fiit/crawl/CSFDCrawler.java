@@ -1,47 +1,252 @@
 package sk.stuba.fiit.crawl;
 
-import static io.restassured.RestAssured.given;
-
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import sk.stuba.fiit.util.IOUtils;
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.pipeline.FilmPage;
+import sk.stuba.fiit.pipeline.StreamingPipeline;
+import sk.stuba.fiit.store.PageArchive;
+import sk.stuba.fiit.store.WriteBehindArchive;
 
 public class CSFDCrawler implements Crawler {
 
     private static final String FILM_URL = "https://www.csfd.cz/film/REPLACE/prehled/";
 
+    public static final Path ARCHIVE_DIR = Paths.get("src/main/resources/data/csfd/archive");
+
+    private static final String CHUNKS_REMAINING = "crawl.csfd.chunks.remaining";
+    private static final Counter SEEDED = Metrics.counter("crawl.ids.seeded");
+    private static final Counter SEED_FAILURES = Metrics.counter("crawl.ids.seeds.failed");
+    private static final int WRITE_BEHIND_CAPACITY = 1_024;
+    private static final long LEASE_MILLIS = 60_000;
+
+    public static final Path DEAD_IDS = Paths.get("src/main/resources/data/csfd/dead_ids.bin");
+    private static final String REJECTED_IDS_FILE = "rejected_ids.bin";
+    public static final List<String> SEED_URLS =
+            Arrays.asList("https://www.csfd.cz/sitemap.xml", "https://www.csfd.cz/zebricky/filmy/nejlepsi/");
+
+    private static final long DEAD_ID_TTL = TimeUnit.DAYS.toMillis(30);
+    private static final int DEAD_STRETCH = 32;
+    private static final int MAX_STRIDE = 64;
+    private static final int MAX_FILM_ID = 2_000_000;
+
+    private static final PageFilter FILM_TYPE_FILTER =
+            new MarkerTextFilter("class=\"film-type\"", "class=\"genre\"", Arrays.asList("(epizoda)", "(série)"));
+
+    private static final Pattern FILM_LINK = Pattern.compile("/film/(\\d{1,9})");
+    private static final Pattern SITEMAP_LINK = Pattern.compile("<loc>\\s*(\\S+\\.xml)\\s*</loc>");
+
+    private final int fromId;
+    private final int toId;
+    private final int concurrency;
+    private final int chunkSize;
+    private final PoliteFetcher fetcher;
+    private final PageClient client = PageClient.shared();
+    private final Path archiveDir;
+    private final Optional<StreamingPipeline<FilmPage>> pipeline;
+    private final Optional<Path> deadIdsFile;
+    private final List<String> seedUrls;
+
+    private WriteBehindArchive archive;
+    private SparseIdScan scan;
+
+    public CSFDCrawler() {
+        this(500_000, 600_000, 64, 100, PoliteFetcher.shared(), ARCHIVE_DIR);
+    }
+
+    public CSFDCrawler(int fromId, int toId, int concurrency, int chunkSize, PoliteFetcher fetcher, Path archiveDir) {
+        this(fromId, toId, concurrency, chunkSize, fetcher, archiveDir, Optional.empty(), Optional.empty(),
+                Collections.emptyList());
+    }
+
+    private CSFDCrawler(int fromId, int toId, int concurrency, int chunkSize, PoliteFetcher fetcher, Path archiveDir,
+            Optional<StreamingPipeline<FilmPage>> pipeline, Optional<Path> deadIdsFile, List<String> seedUrls) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.concurrency = concurrency;
+        this.chunkSize = chunkSize;
+        this.fetcher = fetcher;
+        this.archiveDir = archiveDir;
+        this.pipeline = pipeline;
+        this.deadIdsFile = deadIdsFile;
+        this.seedUrls = seedUrls;
+    }
+
+    public static CSFDCrawler streaming(StreamingPipeline<FilmPage> pipeline) {
+        return new CSFDCrawler(500_000, 600_000, 64, 100, PoliteFetcher.shared(), ARCHIVE_DIR, Optional.of(pipeline),
+                Optional.empty(), Collections.emptyList());
+    }
+
+    public static CSFDCrawler discovery() {
+        return discovery(DEAD_IDS, SEED_URLS);
+    }
+
+    public static CSFDCrawler discovery(Path deadIdsFile, List<String> seedUrls) {
+        return new CSFDCrawler(1, MAX_FILM_ID, 64, 1_000, PoliteFetcher.shared(), ARCHIVE_DIR, Optional.empty(),
+                Optional.of(deadIdsFile), seedUrls);
+    }
+
     @Override
-    public void crawlAndSave() throws InterruptedException {
-        ExecutorService es = Executors.newCachedThreadPool();
+    public void crawlAndSave() throws IOException, InterruptedException {
+        IdChunkQueue queue = new IdChunkQueue(fromId, toId, chunkSize);
+        Metrics.gauge(CHUNKS_REMAINING, queue::remaining);
+        try {
+            crawl(() -> new FetchEngine(concurrency).run(queue, this::downloadPagesFromTo));
+        } finally {
+            Metrics.removeGauge(CHUNKS_REMAINING);
+        }
+    }
+
+    public FileLeaseCoordinator createLeases(Path stateFile) throws IOException {
+        return FileLeaseCoordinator.create(stateFile, fromId, toId, chunkSize);
+    }
 
-        es.submit(() -> downloadPagesFromTo(500_000, 520_000));
-        es.submit(() -> downloadPagesFromTo(520_000, 540_000));
-        es.submit(() -> downloadPagesFromTo(540_000, 560_000));
-        es.submit(() -> downloadPagesFromTo(560_000, 580_000));
-        es.submit(() -> downloadPagesFromTo(580_000, 600_000));
+    public void crawlLeased(LeaseCoordinator coordinator) throws IOException, InterruptedException {
+        LeaseWorker worker = new LeaseWorker(coordinator, concurrency, LEASE_MILLIS);
+        crawl(() -> worker.run(v -> new ChunkCrawl().run(v).whenStored()));
+    }
+
+    @FunctionalInterface
+    private interface CrawlTask {
+        void run() throws InterruptedException;
+    }
+
+    private void crawl(CrawlTask task) throws IOException, InterruptedException {
+        try (PageArchive archive = pipeline.isPresent() ? null : PageArchive.open(archiveDir);
+                WriteBehindArchive writer = archive == null ? null : new WriteBehindArchive(archive, WRITE_BEHIND_CAPACITY);
+                IdNegativeCache deadIds = deadIdsFile.isPresent() ? IdNegativeCache.open(deadIdsFile.get(), DEAD_ID_TTL) : null;
+                IdNegativeCache rejectedIds = deadIdsFile.isPresent()
+                        ? IdNegativeCache.open(deadIdsFile.get().resolveSibling(REJECTED_IDS_FILE), DEAD_ID_TTL) : null) {
+            this.archive = writer;
+            this.scan = deadIds == null ? null
+                    : new SparseIdScan(deadIds, rejectedIds, seed(seedUrls), DEAD_STRETCH, MAX_STRIDE);
 
-        es.shutdown();
-        es.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            task.run();
+        }
     }
 
-    private void downloadPagesFromTo(int from, int to) {
-        for (int i = from; i < to; i++) {
+    private BitSet seed(List<String> urls) throws InterruptedException {
+        BitSet seeds = new BitSet();
+        for (String url : urls) {
+            seed(url, seeds, true);
+        }
+        SEEDED.add(seeds.cardinality());
+
+        return seeds;
+    }
+
+    private void seed(String url, BitSet seeds, boolean followSitemaps) throws InterruptedException {
+        String page;
+        try {
+            page = new String(fetcher.fetch(url, () -> client.getBytes(url)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            SEED_FAILURES.inc();
+            return;
+        }
+
+        Matcher m = FILM_LINK.matcher(page);
+        while (m.find()) {
+            int id = Integer.parseInt(m.group(1));
+            if (id <= MAX_FILM_ID) {
+                seeds.set(id);
+            }
+        }
+
+        if (followSitemaps) {
+            Matcher sitemap = SITEMAP_LINK.matcher(page);
+            while (sitemap.find()) {
+                seed(sitemap.group(1), seeds, false);
+            }
+        }
+    }
+
+    public static String getArchiveKey(int id) {
+        return "csfd/" + id;
+    }
+
+    private void downloadPagesFromTo(IdRange range) {
+        try {
+            new ChunkCrawl().run(range);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class ChunkCrawl implements SparseIdScan.Probe {
+
+        private int pages;
+        private final List<Integer> failedIds = new ArrayList<>();
+        private CompletableFuture<Void> stored = CompletableFuture.completedFuture(null);
+
+        ChunkCrawl run(IdRange range) throws InterruptedException {
+            if (scan != null) {
+                scan.scan(range, this);
+                return this;
+            }
+
+            for (int i = range.getFrom(); i < range.getTo(); i++) {
+                probe(i);
+            }
+
+            return this;
+        }
+
+        CompletableFuture<ChunkResult> whenStored() {
+            return stored.thenApply(v -> new ChunkResult(pages, failedIds));
+        }
+
+        @Override
+        public SparseIdScan.Result probe(int id) throws InterruptedException {
+            SparseIdScan.Result result = fetch(id);
+            if (result == SparseIdScan.Result.FOUND) {
+                pages++;
+            } else if (result == SparseIdScan.Result.FAILED) {
+                failedIds.add(id);
+            }
+
+            return result;
+        }
+
+        private SparseIdScan.Result fetch(int id) throws InterruptedException {
             try {
-                String pageUrl = FILM_URL.replace("REPLACE", String.valueOf(i));
-                downloadPage(pageUrl, i);
-            } catch (Exception e) {
+                stored = downloadPage(FILM_URL.replace("REPLACE", String.valueOf(id)), id);
+                return SparseIdScan.Result.FOUND;
+            } catch (FetchStatusException e) {
+                return e.getStatusCode() == 404 || e.getStatusCode() == 410 ? SparseIdScan.Result.MISSING
+                        : SparseIdScan.Result.FAILED;
+            } catch (PageRejectedException e) {
+                return SparseIdScan.Result.REJECTED;
+            } catch (IOException | RuntimeException e) {
+                return SparseIdScan.Result.FAILED;
             }
         }
     }
 
-    private void downloadPage(String url, int i) {
-        String page = given().get(url).then().extract().response().body().asString();
-        Path p = Paths.get("src/main/resources/data/csfd/pages/csfd_page" + i + ".html");
+    private CompletableFuture<Void> downloadPage(String url, int i) throws IOException, InterruptedException {
+        byte[] page = fetcher.fetch(url, () -> client.getBytes(url, FILM_TYPE_FILTER));
+
+        if (pipeline.isPresent()) {
+            pipeline.get().submit(new FilmPage(i, page));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> stored = new CompletableFuture<>();
+        archive.put(getArchiveKey(i), page, () -> stored.complete(null));
 
-        IOUtils.writeToFile(p, page);
+        return stored;
     }
 }
@@ -0,0 +1,37 @@
+package sk.stuba.fiit.crawl;
+
+public class ChunkLease {
+
+    private final IdRange range;
+    private final String workerId;
+    private final long token;
+    private final long expiresAt;
+
+    public ChunkLease(IdRange range, String workerId, long token, long expiresAt) {
+        this.range = range;
+        this.workerId = workerId;
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    public IdRange getRange() {
+        return range;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return range + " leased to " + workerId + " (token " + token + ")";
+    }
+}
@@ -0,0 +1,28 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ChunkResult {
+
+    private final long pages;
+    private final List<Integer> failedIds;
+
+    public ChunkResult(long pages, List<Integer> failedIds) {
+        this.pages = pages;
+        this.failedIds = Collections.unmodifiableList(new ArrayList<>(failedIds));
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public List<Integer> getFailedIds() {
+        return failedIds;
+    }
+
+    public boolean hasFailures() {
+        return !failedIds.isEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import sk.stuba.fiit.util.BloomFilter;
+
+public class CrawlFrontier implements Closeable {
+
+    private static final String PENDING = "P";
+    private static final String DONE = "D";
+
+    private final BloomFilter seen;
+    private final Map<String, String> pending = new LinkedHashMap<>();
+    private final BufferedWriter log;
+
+    private CrawlFrontier(Path logFile, long expectedUrls, double falsePositiveRate) throws IOException {
+        this.seen = new BloomFilter(expectedUrls, falsePositiveRate);
+
+        if (Files.exists(logFile)) {
+            replay(logFile);
+        } else if (logFile.getParent() != null) {
+            Files.createDirectories(logFile.getParent());
+        }
+
+        this.log = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    public static CrawlFrontier open(Path logFile, long expectedUrls, double falsePositiveRate) throws IOException {
+        return new CrawlFrontier(logFile, expectedUrls, falsePositiveRate);
+    }
+
+    private void replay(Path logFile) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] tokens = line.split("\t", 3);
+                if (tokens.length == 3 && PENDING.equals(tokens[0])) {
+                    seen.put(tokens[2]);
+                    pending.put(tokens[2], tokens[1]);
+                } else if (tokens.length == 2 && DONE.equals(tokens[0])) {
+                    seen.put(tokens[1]);
+                    pending.remove(tokens[1]);
+                }
+            }
+        }
+    }
+
+    public synchronized boolean add(String url, String kind) {
+        if (seen.mightContain(url)) {
+            return false;
+        }
+
+        seen.put(url);
+        pending.put(url, kind);
+        append(PENDING + "\t" + kind + "\t" + url);
+
+        return true;
+    }
+
+    public synchronized void complete(String url) {
+        if (pending.remove(url) != null) {
+            append(DONE + "\t" + url);
+        }
+    }
+
+    public synchronized boolean isSeen(String url) {
+        return seen.mightContain(url);
+    }
+
+    public synchronized List<String> getPending(String kind) {
+        return pending.entrySet().stream()//
+                .filter(v -> v.getValue().equals(kind))//
+                .map(Map.Entry::getKey)//
+                .collect(Collectors.toList());
+    }
+
+    private void append(String line) {
+        try {
+            log.write(line);
+            log.newLine();
+            log.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+}
@@ -0,0 +1,64 @@
+package sk.stuba.fiit.crawl;
+
+public class CrawlProgress {
+
+    private final int pending;
+    private final int leased;
+    private final int done;
+    private final int failed;
+    private final int workers;
+    private final int reassigned;
+    private final long pages;
+
+    public CrawlProgress(int pending, int leased, int done, int failed, int workers, int reassigned, long pages) {
+        this.pending = pending;
+        this.leased = leased;
+        this.done = done;
+        this.failed = failed;
+        this.workers = workers;
+        this.reassigned = reassigned;
+        this.pages = pages;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public int getLeased() {
+        return leased;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public int getTotal() {
+        return pending + leased + done + failed;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getReassigned() {
+        return reassigned;
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public boolean isFinished() {
+        return done + failed == getTotal();
+    }
+
+    @Override
+    public String toString() {
+        return "Chunks " + done + "/" + getTotal() + " done, " + failed + " failed, " + leased + " leased to " + workers + " workers, "
+                + pending + " pending, " + reassigned + " reassigned, " + pages + " pages.";
+    }
+}
@@ -0,0 +1,46 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class FetchEngine {
+
+    private final int concurrency;
+
+    public FetchEngine(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive, was " + concurrency + ".");
+        }
+
+        this.concurrency = concurrency;
+    }
+
+    public void run(IdChunkQueue queue, Consumer<IdRange> chunkTask) throws InterruptedException {
+        ExecutorService es = Executors.newFixedThreadPool(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            es.submit(() -> drain(queue, chunkTask));
+        }
+
+        es.shutdown();
+        es.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain(IdChunkQueue queue, Consumer<IdRange> chunkTask) {
+        Optional<IdRange> chunk;
+        while ((chunk = queue.poll()).isPresent()) {
+            try {
+                chunkTask.accept(chunk.get());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+}
@@ -0,0 +1,25 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+
+public class FetchStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String url;
+    private final int statusCode;
+
+    public FetchStatusException(String url, int statusCode) {
+        super("HTTP " + statusCode + " fetching " + url);
+        this.url = url;
+        this.statusCode = statusCode;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,491 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class FileLeaseCoordinator implements LeaseCoordinator {
+
+    private static final String PENDING = "P";
+    private static final String LEASED = "L";
+    private static final String DONE = "D";
+    private static final String FAILED = "F";
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final int MIN_COMPACT_LINES = 1_024;
+
+    private static final Map<Path, State> STATES = new ConcurrentHashMap<>();
+
+    private final Path stateFile;
+    private final Path journalFile;
+    private final Path lockFile;
+    private final int maxAttempts;
+    private final State state;
+
+    private FileLeaseCoordinator(Path stateFile, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive, was " + maxAttempts + ".");
+        }
+
+        this.stateFile = stateFile;
+        this.journalFile = stateFile.resolveSibling(stateFile.getFileName() + ".journal");
+        this.lockFile = stateFile.resolveSibling(stateFile.getFileName() + ".lock");
+        this.maxAttempts = maxAttempts;
+        this.state = STATES.computeIfAbsent(stateFile.toAbsolutePath().normalize(), v -> new State());
+    }
+
+    public static FileLeaseCoordinator open(Path stateFile) throws IOException {
+        return open(stateFile, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public static FileLeaseCoordinator open(Path stateFile, int maxAttempts) throws IOException {
+        if (!Files.exists(stateFile)) {
+            throw new IOException("Lease state " + stateFile + " does not exist, start the coordinator first.");
+        }
+
+        return new FileLeaseCoordinator(stateFile, maxAttempts);
+    }
+
+    public static FileLeaseCoordinator create(Path stateFile, int fromId, int toId, int chunkSize) throws IOException {
+        return create(stateFile, fromId, toId, chunkSize, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public static FileLeaseCoordinator create(Path stateFile, int fromId, int toId, int chunkSize, int maxAttempts)
+            throws IOException {
+        if (stateFile.getParent() != null) {
+            Files.createDirectories(stateFile.getParent());
+        }
+
+        FileLeaseCoordinator coordinator = new FileLeaseCoordinator(stateFile, maxAttempts);
+        coordinator.update((chunks, changed) -> {
+            if (chunks.isEmpty()) {
+                IdChunkQueue queue = new IdChunkQueue(fromId, toId, chunkSize);
+
+                Optional<IdRange> range;
+                while ((range = queue.poll()).isPresent()) {
+                    Chunk chunk = new Chunk(range.get());
+                    chunks.add(chunk);
+                    coordinator.state.byFrom.put(chunk.range.getFrom(), chunk);
+                }
+                changed.addAll(chunks);
+            }
+
+            return null;
+        });
+
+        return coordinator;
+    }
+
+    @Override
+    public Optional<ChunkLease> acquire(String workerId, long leaseMillis) throws IOException {
+        return update((chunks, changed) -> {
+            long now = System.currentTimeMillis();
+
+            for (Chunk chunk : chunks) {
+                if (LEASED.equals(chunk.state) && chunk.expiresAt < now && chunk.attempts >= maxAttempts) {
+                    chunk.state = FAILED;
+                    chunk.expiresAt = 0;
+                    chunk.failedIds = IntStream.range(chunk.range.getFrom(), chunk.range.getTo()).boxed()
+                            .collect(Collectors.toList());
+                    changed.add(chunk);
+                    continue;
+                }
+
+                if (PENDING.equals(chunk.state) || (LEASED.equals(chunk.state) && chunk.expiresAt < now)) {
+                    chunk.state = LEASED;
+                    chunk.worker = workerId;
+                    chunk.token = ++state.token;
+                    chunk.expiresAt = now + leaseMillis;
+                    chunk.attempts++;
+                    changed.add(chunk);
+
+                    return Optional.of(new ChunkLease(chunk.range, workerId, chunk.token, chunk.expiresAt));
+                }
+            }
+
+            return Optional.empty();
+        });
+    }
+
+    @Override
+    public boolean renew(ChunkLease lease, long leaseMillis) throws IOException {
+        return update((chunks, changed) -> {
+            Optional<Chunk> chunk = findHeld(lease);
+            chunk.ifPresent(v -> {
+                v.expiresAt = System.currentTimeMillis() + leaseMillis;
+                changed.add(v);
+            });
+
+            return chunk.isPresent();
+        });
+    }
+
+    @Override
+    public boolean complete(ChunkLease lease, long pages) throws IOException {
+        return update((chunks, changed) -> {
+            Optional<Chunk> chunk = findHeld(lease);
+            chunk.ifPresent(v -> {
+                v.state = DONE;
+                v.expiresAt = 0;
+                v.pages = pages;
+                v.failedIds = Collections.emptyList();
+                changed.add(v);
+            });
+
+            return chunk.isPresent();
+        });
+    }
+
+    @Override
+    public boolean release(ChunkLease lease, ChunkResult result) throws IOException {
+        return update((chunks, changed) -> {
+            Optional<Chunk> chunk = findHeld(lease);
+            chunk.ifPresent(v -> {
+                v.state = v.attempts >= maxAttempts ? FAILED : PENDING;
+                v.worker = "-";
+                v.expiresAt = 0;
+                v.pages = result.getPages();
+                v.failedIds = result.getFailedIds();
+                changed.add(v);
+            });
+
+            return chunk.isPresent();
+        });
+    }
+
+    public List<Integer> failedIds() throws IOException {
+        return update((chunks, changed) -> chunks.stream()//
+                .filter(v -> FAILED.equals(v.state))//
+                .flatMap(v -> v.failedIds.stream())//
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public CrawlProgress progress() throws IOException {
+        return update((chunks, changed) -> {
+            long now = System.currentTimeMillis();
+
+            int pending = 0;
+            int leased = 0;
+            int done = 0;
+            int failed = 0;
+            int reassigned = 0;
+            long pages = 0;
+            Set<String> workers = new HashSet<>();
+
+            for (Chunk chunk : chunks) {
+                if (DONE.equals(chunk.state)) {
+                    done++;
+                    pages += chunk.pages;
+                } else if (FAILED.equals(chunk.state)) {
+                    failed++;
+                    pages += chunk.pages;
+                } else if (LEASED.equals(chunk.state) && chunk.expiresAt >= now) {
+                    leased++;
+                    workers.add(chunk.worker);
+                } else {
+                    pending++;
+                }
+
+                reassigned += Math.max(0, chunk.attempts - 1);
+            }
+
+            return new CrawlProgress(pending, leased, done, failed, workers.size(), reassigned, pages);
+        });
+    }
+
+    private Optional<Chunk> findHeld(ChunkLease lease) {
+        return Optional.ofNullable(state.byFrom.get(lease.getRange().getFrom()))//
+                .filter(v -> LEASED.equals(v.state) && v.token == lease.getToken());
+    }
+
+    @FunctionalInterface
+    private interface StateUpdate<T> {
+        T apply(List<Chunk> chunks, List<Chunk> changed) throws IOException;
+    }
+
+    private <T> T update(StateUpdate<T> update) throws IOException {
+        synchronized (state) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                FileLock fileLock = channel.lock();
+                try {
+                    refresh();
+
+                    List<Chunk> changed = new ArrayList<>();
+                    T result = update.apply(state.chunks, changed);
+
+                    if (!changed.isEmpty()) {
+                        if (!Files.exists(stateFile)) {
+                            compact();
+                        } else {
+                            append(changed);
+                            if (state.journalLines > Math.max(MIN_COMPACT_LINES, state.chunks.size())) {
+                                compact();
+                            }
+                        }
+                    }
+
+                    return result;
+                } catch (IOException | RuntimeException e) {
+                    state.generation = -1;
+                    throw e;
+                } finally {
+                    fileLock.release();
+                }
+            }
+        }
+    }
+
+    private void refresh() throws IOException {
+        if (state.generation < 0 || !Files.exists(journalFile)) {
+            load();
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            String header = getHeader(state.generation);
+            if (channel.size() < state.journalOffset
+                    || !header.equals(read(channel, 0, header.length()))) {
+                load();
+                return;
+            }
+
+            replay(channel);
+        }
+    }
+
+    private void load() throws IOException {
+        state.chunks.clear();
+        state.byFrom.clear();
+        state.token = 0;
+        state.generation = 0;
+        state.journalOffset = 0;
+        state.journalLines = 0;
+
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+
+        String snapshot = new String(Files.readAllBytes(stateFile), StandardCharsets.UTF_8);
+        if (snapshot.isEmpty()) {
+            throw new IOException("Lease state " + stateFile + " is empty.");
+        }
+
+        String[] lines = snapshot.split("\n");
+        int first = 0;
+        if (lines[0].startsWith("#")) {
+            state.generation = parseGeneration(lines[0], stateFile);
+            first = 1;
+        }
+        for (int i = first; i < lines.length; i++) {
+            Chunk chunk = parse(lines[i], stateFile, i + 1);
+            state.chunks.add(chunk);
+            state.byFrom.put(chunk.range.getFrom(), chunk);
+            state.token = Math.max(state.token, chunk.token);
+        }
+        if (state.chunks.isEmpty()) {
+            throw new IOException("Lease state " + stateFile + " has no chunks.");
+        }
+
+        String header = getHeader(state.generation);
+        if (Files.exists(journalFile)) {
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+                if (header.equals(read(channel, 0, header.length()))) {
+                    state.journalOffset = header.length();
+                    replay(channel);
+                    return;
+                }
+            }
+        }
+
+        // missing journal or one left over from before the last snapshot, which already contains it
+        writeAtomically(journalFile, header);
+        state.journalOffset = header.length();
+    }
+
+    private void replay(FileChannel channel) throws IOException {
+        String journal = read(channel, state.journalOffset, (int) (channel.size() - state.journalOffset));
+
+        int start = 0;
+        int end;
+        while ((end = journal.indexOf('\n', start)) >= 0) {
+            Chunk update = parse(journal.substring(start, end), journalFile, state.journalLines + 2);
+            Chunk chunk = state.byFrom.get(update.range.getFrom());
+            if (chunk == null) {
+                throw new IOException("Lease journal " + journalFile + " updates unknown chunk " + update.range + ".");
+            }
+            chunk.copy(update);
+            state.token = Math.max(state.token, chunk.token);
+
+            state.journalLines++;
+            start = end + 1;
+        }
+
+        // an incomplete last line is an append that never finished, it is overwritten by the next one
+        state.journalOffset += journal.substring(0, start).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private void append(List<Chunk> changed) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(format(changed).getBytes(StandardCharsets.UTF_8));
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.truncate(state.journalOffset);
+            while (bb.hasRemaining()) {
+                channel.write(bb, state.journalOffset + bb.position());
+            }
+            channel.force(false);
+        }
+
+        state.journalOffset += bb.limit();
+        state.journalLines += changed.size();
+    }
+
+    private void compact() throws IOException {
+        long generation = state.generation + 1;
+
+        writeAtomically(stateFile, getHeader(generation) + format(state.chunks));
+        writeAtomically(journalFile, getHeader(generation));
+
+        state.generation = generation;
+        state.journalOffset = getHeader(generation).length();
+        state.journalLines = 0;
+    }
+
+    private void writeAtomically(Path file, String content) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer bb = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
+            channel.force(true);
+        }
+
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - position)));
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, position + bb.position()) < 0) {
+                break;
+            }
+        }
+
+        return new String(bb.array(), 0, bb.position(), StandardCharsets.UTF_8);
+    }
+
+    private static String getHeader(long generation) {
+        return "#" + generation + "\n";
+    }
+
+    private static long parseGeneration(String line, Path file) throws IOException {
+        try {
+            return Long.parseLong(line.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IOException("Lease state " + file + " has a malformed header: " + line, e);
+        }
+    }
+
+    private static Chunk parse(String line, Path file, int lineNumber) throws IOException {
+        String[] tokens = line.split("\t");
+        if (tokens.length != 8 && tokens.length != 9) {
+            throw new IOException("Lease state " + file + " is malformed at line " + lineNumber + ": " + line);
+        }
+
+        try {
+            Chunk chunk = new Chunk(new IdRange(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1])));
+            chunk.state = tokens[2];
+            chunk.worker = tokens[3];
+            chunk.token = Long.parseLong(tokens[4]);
+            chunk.expiresAt = Long.parseLong(tokens[5]);
+            chunk.attempts = Integer.parseInt(tokens[6]);
+            chunk.pages = Long.parseLong(tokens[7]);
+            chunk.failedIds = tokens.length == 9 ? parseIds(tokens[8]) : Collections.emptyList();
+
+            return chunk;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Lease state " + file + " is malformed at line " + lineNumber + ": " + line, e);
+        }
+    }
+
+    private static List<Integer> parseIds(String ids) {
+        return "-".equals(ids) ? Collections.emptyList()
+                : Arrays.stream(ids.split(",")).map(Integer::valueOf).collect(Collectors.toList());
+    }
+
+    private static String formatIds(List<Integer> ids) {
+        return ids.isEmpty() ? "-" : ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static String format(List<Chunk> chunks) {
+        StringBuilder sb = new StringBuilder(chunks.size() * 48);
+        for (Chunk chunk : chunks) {
+            sb.append(chunk.range.getFrom()).append('\t').append(chunk.range.getTo()).append('\t')//
+                    .append(chunk.state).append('\t').append(chunk.worker).append('\t')//
+                    .append(chunk.token).append('\t').append(chunk.expiresAt).append('\t')//
+                    .append(chunk.attempts).append('\t').append(chunk.pages).append('\t')//
+                    .append(formatIds(chunk.failedIds)).append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    private static class State {
+
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final Map<Integer, Chunk> byFrom = new HashMap<>();
+        private long generation = -1;
+        private long journalOffset;
+        private int journalLines;
+        private long token;
+    }
+
+    private static class Chunk {
+
+        private final IdRange range;
+        private String state = PENDING;
+        private String worker = "-";
+        private long token;
+        private long expiresAt;
+        private int attempts;
+        private long pages;
+        private List<Integer> failedIds = Collections.emptyList();
+
+        Chunk(IdRange range) {
+            this.range = range;
+        }
+
+        void copy(Chunk other) {
+            state = other.state;
+            worker = other.worker;
+            token = other.token;
+            expiresAt = other.expiresAt;
+            attempts = other.attempts;
+            pages = other.pages;
+            failedIds = other.failedIds;
+        }
+    }
+}
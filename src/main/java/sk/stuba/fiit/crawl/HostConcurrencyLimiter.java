@@ -0,0 +1,29 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HostConcurrencyLimiter {
+
+    private final Map<String, AimdLimit> limits = new ConcurrentHashMap<>();
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    public HostConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            double latencyTolerance) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public AimdLimit limitFor(String url) {
+        return limits.computeIfAbsent(HostRateLimiter.getHost(url),
+                v -> new AimdLimit("fetch." + v, initialLimit, minLimit, maxLimit, backoffRatio, latencyTolerance));
+    }
+}
@@ -0,0 +1,39 @@
+package sk.stuba.fiit.crawl;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HostRateLimiter {
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final double permitsPerSecond;
+    private final double burst;
+
+    public HostRateLimiter(double permitsPerSecond, double burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+    }
+
+    public void acquire(String url) throws InterruptedException {
+        bucketFor(url).acquire();
+    }
+
+    public void pause(String url, long millis) {
+        bucketFor(url).pause(millis);
+    }
+
+    private TokenBucket bucketFor(String url) {
+        return buckets.computeIfAbsent(getHost(url), v -> new TokenBucket(permitsPerSecond, burst));
+    }
+
+    public static String getHost(String url) {
+        try {
+            return Optional.ofNullable(URI.create(url).getHost()).orElse(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
@@ -1,23 +1,34 @@
 package sk.stuba.fiit.crawl;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import sk.stuba.fiit.util.IOUtils;
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.pipeline.StreamingPipeline;
+import sk.stuba.fiit.pipeline.TitlePages;
+import sk.stuba.fiit.store.PageArchive;
+import sk.stuba.fiit.store.WriteBehindArchive;
 
 public class IMDBCrawler implements Crawler {
     
@@ -31,113 +42,296 @@ public class IMDBCrawler implements Crawler {
     private static final List<String> NOT_WANTED_GENRES =
             Arrays.asList("Film-Noir", "Talk-Show", "News", "Reality-TV", "Musical", "Adult", "Short", "Game-Show");
 
+    private static final JsonLdGenreFilter TITLE_FILTER = new JsonLdGenreFilter(NOT_WANTED_GENRES);
+
+    private static final Counter TITLES_REJECTED = Metrics.counter("crawl.imdb.titles.rejected");
+
+    private static final Path FRONTIER_LOG = Paths.get("src/main/resources/data/imdb/frontier.log");
+    public static final Path ARCHIVE_DIR = Paths.get("src/main/resources/data/imdb/archive");
+
+    public static final String CAST_SUFFIX = "/cast";
+    public static final String SUMMARY_SUFFIX = "/summary";
+
+    private static final Pattern TITLE_ID = Pattern.compile("/title/(tt\\d+)");
+    private static final Pattern TOTAL_TITLES = Pattern.compile("of ([\\d,]+) titles");
+    private static final Pattern START_PARAM = Pattern.compile("([?&])start=\\d+&?");
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final int WRITE_BEHIND_CAPACITY = 256;
+    private static final int MAX_WORKERS = 32;
+
+    private static final String LISTING = "listing:";
+    private static final String TITLE = "title";
+
+    private final PoliteFetcher fetcher;
+    private final PageClient client = PageClient.shared();
+    private final Path frontierLog;
+    private final Path archiveDir;
+    private final Optional<StreamingPipeline<TitlePages>> pipeline;
+
+    private CrawlFrontier frontier;
+    private WriteBehindArchive archive;
+    private TaskGroup tasks;
+    private ExecutorService subFetches;
+
+    public IMDBCrawler() {
+        this(PoliteFetcher.shared(), FRONTIER_LOG, ARCHIVE_DIR);
+    }
+
+    public IMDBCrawler(PoliteFetcher fetcher, Path frontierLog, Path archiveDir) {
+        this(fetcher, frontierLog, archiveDir, Optional.empty());
+    }
+
+    private IMDBCrawler(PoliteFetcher fetcher, Path frontierLog, Path archiveDir,
+            Optional<StreamingPipeline<TitlePages>> pipeline) {
+        this.fetcher = fetcher;
+        this.frontierLog = frontierLog;
+        this.archiveDir = archiveDir;
+        this.pipeline = pipeline;
+    }
+
+    public static IMDBCrawler streaming(StreamingPipeline<TitlePages> pipeline) {
+        return new IMDBCrawler(PoliteFetcher.shared(), FRONTIER_LOG, ARCHIVE_DIR, Optional.of(pipeline));
+    }
+
     public void crawlAndSave() throws IOException, InterruptedException {
-        Document doc =
-                Jsoup.connect(BASE_URL + SEARCH_TITLE + ALL_GENRES).userAgent("Mozilla/5.0").maxBodySize(0).timeout(0).get();
-        List<Element> genreItems = doc.selectFirst("h3:contains(Genres)").nextElementSibling().select("a");
-
-        ExecutorService es = Executors.newFixedThreadPool(5);
-        for (Element genreItem : genreItems) {
-            if (!NOT_WANTED_GENRES.contains(genreItem.text())) {
-                try {
-                    Document genreDoc =
-                            Jsoup.connect(genreItem.attr("abs:href")).userAgent("Mozilla/5.0").maxBodySize(0).timeout(0).get();
-                    es.submit(() -> new IMDBCrawler().crawlGenre(genreItem.text(), genreDoc, 1_000, 20));
-                } catch (IOException e) {
-                    e.printStackTrace();
+        try (CrawlFrontier frontier = CrawlFrontier.open(frontierLog, 2_000_000, 0.001);
+                PageArchive archive = pipeline.isPresent() ? null : PageArchive.open(archiveDir);
+                WriteBehindArchive writer = archive == null ? null : new WriteBehindArchive(archive, WRITE_BEHIND_CAPACITY)) {
+            this.frontier = frontier;
+            this.archive = writer;
+
+            ExecutorService workers = Executors.newFixedThreadPool(MAX_WORKERS);
+            this.subFetches = Executors.newFixedThreadPool(MAX_WORKERS * 2);
+            this.tasks = new TaskGroup(workers);
+
+            try {
+                for (String titleUrl : frontier.getPending(TITLE)) {
+                    tasks.submit(() -> crawlTitle(titleUrl));
                 }
+
+                Document doc = getDocument(BASE_URL + SEARCH_TITLE + ALL_GENRES);
+                List<Element> genreItems = doc.selectFirst("h3:contains(Genres)").nextElementSibling().select("a");
+
+                for (Element genreItem : genreItems) {
+                    if (!NOT_WANTED_GENRES.contains(genreItem.text())) {
+                        crawlGenre(genreItem.text(), genreItem.attr("abs:href"), 1_000, 20);
+                    }
+                }
+
+                tasks.await();
+            } finally {
+                workers.shutdownNow();
+                subFetches.shutdownNow();
             }
         }
-
-        es.shutdown();
-        es.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
     }
 
-    private int crawlGenre(String genre, Document doc, int limitTitles, int limitPages) {
-        int count = 0;
-        int page = 1;
+    private void crawlGenre(String genre, String genreUrl, int limitTitles, int limitPages) {
+        String kind = LISTING + genre;
+        AtomicInteger budget = new AtomicInteger(limitTitles);
 
-        System.out.println("Crawling genre " + genre + " ...");
+        List<String> resumeURLs = frontier.getPending(kind);
+        for (String pageURL : resumeURLs) {
+            tasks.submit(() -> crawlListingPage(genreUrl, pageURL, kind, budget, limitPages));
+        }
 
-        String nextPageURL = getNextPage(doc);
-        while ((nextPageURL = getNextPage(doc)) != null && count < limitTitles && page <= limitPages) {
-            try {
-                doc = Jsoup.connect(nextPageURL).userAgent("Mozilla/5.0").maxBodySize(0).timeout(0).get();
-                count += crawlGenrePage(doc, limitTitles);
-                page++;
-            } catch (Exception e) {
-                e.printStackTrace();
+        String firstPageURL = getListingPageURL(genreUrl, 1);
+        if (frontier.add(firstPageURL, kind)) {
+            System.out.println("Crawling genre " + genre + " ...");
+            tasks.submit(() -> crawlListingPage(genreUrl, firstPageURL, kind, budget, limitPages));
+        } else if (!resumeURLs.isEmpty()) {
+            System.out.println("Resuming genre " + genre + " with " + resumeURLs.size() + " pending pages ...");
+        } else {
+            System.out.println("Genre " + genre + " already crawled.");
+        }
+    }
+
+    private void crawlListingPage(String genreUrl, String pageURL, String kind, AtomicInteger budget, int limitPages) {
+        try {
+            Document doc = getDocument(pageURL);
+
+            if (pageURL.equals(getListingPageURL(genreUrl, 1))) {
+                int pages = Math.min(limitPages, getPageCount(doc, limitPages));
+                for (int page = 2; page <= pages; page++) {
+                    String nextPageURL = getListingPageURL(genreUrl, page);
+                    if (frontier.add(nextPageURL, kind)) {
+                        tasks.submit(() -> crawlListingPage(genreUrl, nextPageURL, kind, budget, limitPages));
+                    }
+                }
             }
+
+            crawlGenrePage(doc, budget);
+            frontier.complete(pageURL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int getPageCount(Document doc, int limitPages) {
+        Element desc = doc.selectFirst("div[class=desc]");
+        Matcher m = TOTAL_TITLES.matcher(desc == null ? "" : desc.text());
+        if (m.find()) {
+            return (Integer.parseInt(m.group(1).replace(",", "")) + PAGE_SIZE - 1) / PAGE_SIZE;
         }
 
-        return count;
+        return getNextPage(doc) != null ? limitPages : 1;
     }
 
-    private int crawlGenrePage(Document doc, int limit) {
-        int count = 0;
-        List<Element> titles = doc.select("div[class=lister-item mode-advanced]").stream().map(div -> div.selectFirst("a"))
+    private String getListingPageURL(String genreUrl, int page) {
+        String base = START_PARAM.matcher(genreUrl).replaceAll("$1").replaceAll("[?&]$", "");
+
+        return base + (base.contains("?") ? "&" : "?") + "start=" + ((page - 1) * PAGE_SIZE + 1);
+    }
+
+    private void crawlGenrePage(Document doc, AtomicInteger budget) {
+        List<String> titleURLs = doc.select("div[class=lister-item mode-advanced]").stream()//
+                .filter(this::isWantedListerItem)//
+                .map(div -> div.selectFirst("a"))//
+                .filter(v -> v != null)//
+                .map(v -> getCanonicalURL(v.attr("abs:href")))//
                 .collect(Collectors.toList());
 
-        for (int i = 0; i < titles.size() && i < limit; i++) {
-            try {
-                doc = Jsoup.connect(titles.get(i).attr("abs:href")).userAgent("Mozilla/5.0").maxBodySize(0).timeout(0).get();
-                downloadTitle(doc);
+        int count = 0;
+        for (String titleURL : titleURLs) {
+            if (budget.get() <= 0) {
+                break;
+            }
+
+            if (frontier.add(titleURL, TITLE)) {
+                budget.decrementAndGet();
+                tasks.submit(() -> crawlTitle(titleURL));
                 count++;
-            } catch (Exception e) {
-                e.printStackTrace();
-                i--;
-
-                try {
-                    Thread.currentThread().sleep(2000);
-                } catch (InterruptedException e1) {
-                    e1.printStackTrace();
-                }
             }
         }
 
-        System.out.println("Crawled genre page with " + count + " titles.");
+        System.out.println("Queued genre page with " + count + " titles.");
+    }
+
+    private boolean isWantedListerItem(Element item) {
+        Element genres = item.selectFirst("span[class=genre]");
+        if (genres == null) {
+            return true;
+        }
 
-        return count;
+        for (String genre : genres.text().split(",")) {
+            if (NOT_WANTED_GENRES.contains(genre.trim())) {
+                TITLES_REJECTED.inc();
+                return false;
+            }
+        }
+
+        return true;
     }
 
-    private void downloadTitle(Document doc) {
+    private boolean crawlTitle(String titleURL) {
         try {
-            Element script = doc.selectFirst("script[type=application/ld+json]");
-            JsonNode scriptNode = om.readTree(script.dataNodes().get(0).toString());
+            return downloadTitle(getDocument(titleURL, TITLE_FILTER), () -> frontier.complete(titleURL));
+        } catch (PageRejectedException e) {
+            TITLES_REJECTED.inc();
+            frontier.complete(titleURL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
 
-            Optional<Document> castDoc = getCastDoc(doc);
-            Optional<Document> summaryDoc = getFullTitleDescriptionDoc(doc);
+        return false;
+    }
+
+    private boolean downloadTitle(Document doc, Runnable onStored) throws IOException, InterruptedException {
+        if (!isWantedTitle(doc)) {
+            TITLES_REJECTED.inc();
+            onStored.run();
+            return false;
+        }
 
-            String titleName = getTitleName(scriptNode).map(v -> v.textValue()).orElse("Unknown_" + System.currentTimeMillis());
-            titleName = titleName.replaceAll("/", "").replaceAll(" ", "_");
+        CompletableFuture<Optional<Document>> castFetch = getDocumentAsync(getFullCastURL(doc));
+        CompletableFuture<Optional<Document>> summaryFetch = getDocumentAsync(getFullSummaryURL(doc));
 
-            IOUtils.writeToFile(Paths.get("src/main/resources/data/imdb/pages/", titleName + ".html"), doc.toString());
+        String key = getArchiveKey(doc);
+        Optional<Document> castDoc = await(castFetch);
+        Optional<Document> summaryDoc = await(summaryFetch);
 
-            if (castDoc.isPresent())
-                IOUtils.writeToFile(Paths.get("src/main/resources/data/imdb/pages/", titleName + "_cast.html"),
-                        castDoc.get().toString());
-            if (summaryDoc.isPresent())
-                IOUtils.writeToFile(Paths.get("src/main/resources/data/imdb/pages/", titleName + "_summary.html"),
-                        summaryDoc.get().toString());
+        if (pipeline.isPresent()) {
+            pipeline.get().submit(new TitlePages(key, doc, castDoc, summaryDoc));
+            onStored.run();
+            return true;
+        }
+
+        if (castDoc.isPresent())
+            archive.put(key + CAST_SUFFIX, castDoc.get().toString());
+        if (summaryDoc.isPresent())
+            archive.put(key + SUMMARY_SUFFIX, summaryDoc.get().toString());
 
+        archive.put(key, doc.toString(), onStored);
+        return true;
+    }
+
+    private boolean isWantedTitle(Document doc) {
+        Element script = doc.selectFirst("script[type=application/ld+json]");
+        if (script == null || script.dataNodes().isEmpty()) {
+            return true;
+        }
+
+        try {
+            return TITLE_FILTER.isWanted(om.readTree(script.dataNodes().get(0).getWholeData()));
         } catch (IOException e) {
-            e.printStackTrace();
+            return true;
         }
     }
 
+    private String getArchiveKey(Document doc) throws IOException {
+        Matcher m = TITLE_ID.matcher(doc.location());
+        if (m.find()) {
+            return "imdb/" + m.group(1);
+        }
+
+        Element script = doc.selectFirst("script[type=application/ld+json]");
+        JsonNode scriptNode = om.readTree(script.dataNodes().get(0).toString());
+
+        String titleName = getTitleName(scriptNode).map(v -> v.textValue()).orElse("Unknown_" + System.currentTimeMillis());
+        return "imdb/" + titleName.replaceAll("/", "").replaceAll(" ", "_");
+    }
+
     private Optional<JsonNode> getTitleName(JsonNode node) {
         return Optional.ofNullable(node.get("name"));
     }
 
 
-    private Optional<Document> getCastDoc(Document doc) throws IOException {
-        Optional<String> fullCastURL = getFullCastURL(doc);
-
-        if (fullCastURL.isPresent()) {
-            return Optional.of(Jsoup.connect(fullCastURL.get()).userAgent("Mozilla/5.0").maxBodySize(0).timeout(0).get());
+    private CompletableFuture<Optional<Document>> getDocumentAsync(Optional<String> url) {
+        if (!url.isPresent()) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
 
-        return Optional.empty();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Optional.of(getDocument(url.get()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, subFetches);
+    }
+
+    private <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof InterruptedException) {
+                throw (InterruptedException) e.getCause();
+            }
+
+            throw new IOException(e.getCause());
+        }
     }
 
     private Optional<String> getFullCastURL(Document doc) {
@@ -145,22 +339,23 @@ public class IMDBCrawler implements Crawler {
                 .map(v -> v.selectFirst("a").attr("abs:href")).findFirst();
     }
 
-    private Optional<Document> getFullTitleDescriptionDoc(Element element) throws IOException {
-        Element summaryDiv = element.selectFirst("div[class=summary_text]");
-
-        if (summaryDiv != null) {
-            Optional<String> fullSummaryURL =
-                    Optional.ofNullable(summaryDiv.selectFirst("a:contains(See full summary)")).map(v -> v.attr("abs:href"));
-
-            if (fullSummaryURL.isPresent()) {
-                return Optional.of(Jsoup.connect(fullSummaryURL.get()).userAgent("Mozilla/5.0").maxBodySize(0).timeout(0).get());
-            }
+    private Optional<String> getFullSummaryURL(Element element) {
+        return Optional.ofNullable(element.selectFirst("div[class=summary_text]"))//
+                .map(v -> v.selectFirst("a:contains(See full summary)"))//
+                .map(v -> v.attr("abs:href"));
+    }
 
-        }
+    private Document getDocument(String url) throws IOException, InterruptedException {
+        return getDocument(url, PageFilter.acceptAll());
+    }
 
-        return Optional.empty();
+    private Document getDocument(String url, PageFilter filter) throws IOException, InterruptedException {
+        return fetcher.fetch(url, () -> client.getDocument(url, filter));
     }
 
+    private String getCanonicalURL(String url) {
+        return url.replaceAll("[?#].*$", "");
+    }
 
     private String getNextPage(Document doc) {
         return Optional.ofNullable(doc.selectFirst("a[class=lister-page-next next-page]")).map(v -> v.attr("abs:href"))
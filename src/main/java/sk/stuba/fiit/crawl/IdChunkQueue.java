@@ -0,0 +1,31 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdChunkQueue {
+
+    private final AtomicInteger next;
+    private final int to;
+    private final int chunkSize;
+
+    public IdChunkQueue(int from, int to, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive, was " + chunkSize + ".");
+        }
+
+        this.next = new AtomicInteger(from);
+        this.to = to;
+        this.chunkSize = chunkSize;
+    }
+
+    public Optional<IdRange> poll() {
+        int start = next.getAndAccumulate(chunkSize, (cur, size) -> cur >= to ? cur : Math.min(cur + size, to));
+
+        return start < to ? Optional.of(new IdRange(start, Math.min(start + chunkSize, to))) : Optional.empty();
+    }
+
+    public int remaining() {
+        return Math.max(0, to - next.get());
+    }
+}
@@ -0,0 +1,171 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import sk.stuba.fiit.metrics.Metrics;
+
+public class IdNegativeCache implements Closeable {
+
+    private static final int MAGIC = 0x44454144;
+    private static final long SAVE_INTERVAL_MILLIS = 60_000;
+
+    private final Path file;
+    private final long ttlMillis;
+    private final String sizeGauge;
+
+    private long[] current = new long[0];
+    private long[] previous = new long[0];
+    private long rotatedAt;
+    private long savedAt;
+    private boolean dirty;
+
+    private IdNegativeCache(Path file, long ttlMillis) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+        this.sizeGauge = "crawl.ids.cached." + file.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        this.rotatedAt = System.currentTimeMillis();
+        this.savedAt = rotatedAt;
+    }
+
+    public static IdNegativeCache open(Path file, long ttlMillis) throws IOException {
+        if (ttlMillis < 2) {
+            throw new IllegalArgumentException("TTL must be positive, was " + ttlMillis + " ms.");
+        }
+
+        IdNegativeCache cache = new IdNegativeCache(file, ttlMillis);
+        if (Files.exists(file)) {
+            cache.read();
+        } else if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Metrics.gauge(cache.sizeGauge, cache::size);
+
+        return cache;
+    }
+
+    public synchronized boolean isDead(int id) {
+        rotateIfDue();
+
+        return get(current, id) || get(previous, id);
+    }
+
+    public synchronized void markDead(int id) {
+        if (id < 0) {
+            return;
+        }
+
+        rotateIfDue();
+
+        if ((id >>> 6) >= current.length) {
+            current = Arrays.copyOf(current, Math.max((id >>> 6) + 1, current.length * 2));
+        }
+        current[id >>> 6] |= 1L << id;
+        dirty = true;
+    }
+
+    public synchronized void markAlive(int id) {
+        dirty |= clear(current, id) | clear(previous, id);
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (int i = 0; i < Math.max(current.length, previous.length); i++) {
+            size += Long.bitCount((i < current.length ? current[i] : 0) | (i < previous.length ? previous[i] : 0));
+        }
+
+        return size;
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - rotatedAt >= ttlMillis) {
+            current = new long[0];
+            previous = new long[0];
+            rotatedAt = now;
+        } else if (now - rotatedAt >= ttlMillis / 2) {
+            previous = current;
+            current = new long[0];
+            rotatedAt += ttlMillis / 2;
+        }
+    }
+
+    private static boolean get(long[] bits, int id) {
+        return id >= 0 && (id >>> 6) < bits.length && (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private static boolean clear(long[] bits, int id) {
+        if (!get(bits, id)) {
+            return false;
+        }
+
+        bits[id >>> 6] &= ~(1L << id);
+        return true;
+    }
+
+    private void read() throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (dis.readInt() != MAGIC) {
+                throw new IOException(file + " is not a negative ID cache.");
+            }
+
+            rotatedAt = dis.readLong();
+            current = readBits(dis);
+            previous = readBits(dis);
+        }
+
+        rotateIfDue();
+    }
+
+    private static long[] readBits(DataInputStream dis) throws IOException {
+        long[] bits = new long[dis.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = dis.readLong();
+        }
+
+        return bits;
+    }
+
+    public synchronized void saveIfDue() throws IOException {
+        if (dirty && System.currentTimeMillis() - savedAt >= SAVE_INTERVAL_MILLIS) {
+            save();
+        }
+    }
+
+    public synchronized void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            dos.writeInt(MAGIC);
+            dos.writeLong(rotatedAt);
+            writeBits(dos, current);
+            writeBits(dos, previous);
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        savedAt = System.currentTimeMillis();
+        dirty = false;
+    }
+
+    private static void writeBits(DataOutputStream dos, long[] bits) throws IOException {
+        dos.writeInt(bits.length);
+        for (long word : bits) {
+            dos.writeLong(word);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Metrics.removeGauge(sizeGauge);
+        save();
+    }
+}
@@ -0,0 +1,29 @@
+package sk.stuba.fiit.crawl;
+
+public class IdRange {
+
+    private final int from;
+    private final int to;
+
+    public IdRange(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + from + ", " + to + ")";
+    }
+}
@@ -0,0 +1,61 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonLdGenreFilter implements PageFilter {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private static final byte[] JSON_LD = "application/ld+json".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SCRIPT_CLOSE = "</script".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEAD_CLOSE = "</head>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TAG_END = ">".getBytes(StandardCharsets.US_ASCII);
+
+    private final Collection<String> rejectedGenres;
+
+    public JsonLdGenreFilter(Collection<String> rejectedGenres) {
+        this.rejectedGenres = rejectedGenres;
+    }
+
+    @Override
+    public Decision inspect(URLConnection response, byte[] head, int length) {
+        int marker = MarkerTextFilter.indexOf(head, length, JSON_LD, 0);
+        if (marker < 0) {
+            return MarkerTextFilter.indexOf(head, length, HEAD_CLOSE, 0) >= 0 ? Decision.ACCEPT : Decision.UNDECIDED;
+        }
+
+        int start = MarkerTextFilter.indexOf(head, length, TAG_END, marker) + 1;
+        int end = start <= 0 ? -1 : MarkerTextFilter.indexOf(head, length, SCRIPT_CLOSE, start);
+        if (end < 0) {
+            return Decision.UNDECIDED;
+        }
+
+        try {
+            return isWanted(om.readTree(om.getFactory().createParser(head, start, end - start))) ? Decision.ACCEPT
+                    : Decision.REJECT;
+        } catch (IOException e) {
+            return Decision.ACCEPT;
+        }
+    }
+
+    public boolean isWanted(JsonNode jsonLd) {
+        JsonNode genres = jsonLd.path("genre");
+        if (genres.isTextual()) {
+            return !rejectedGenres.contains(genres.textValue());
+        }
+
+        for (JsonNode genre : genres) {
+            if (rejectedGenres.contains(genre.asText())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,29 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface LeaseCoordinator {
+
+    Optional<ChunkLease> acquire(String workerId, long leaseMillis) throws IOException;
+
+    boolean renew(ChunkLease lease, long leaseMillis) throws IOException;
+
+    boolean complete(ChunkLease lease, long pages) throws IOException;
+
+    boolean release(ChunkLease lease, ChunkResult result) throws IOException;
+
+    CrawlProgress progress() throws IOException;
+
+    default CrawlProgress awaitFinished(long pollMillis) throws IOException, InterruptedException {
+        CrawlProgress progress;
+        while (!(progress = progress()).isFinished()) {
+            System.out.println(progress);
+            Thread.sleep(pollMillis);
+        }
+
+        System.out.println(progress);
+
+        return progress;
+    }
+}
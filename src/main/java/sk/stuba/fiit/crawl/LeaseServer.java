@@ -0,0 +1,142 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+public class LeaseServer implements Closeable {
+
+    private final LeaseCoordinator leases;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    @FunctionalInterface
+    private interface Handler {
+        Optional<String> handle(Map<String, String> params) throws IOException;
+    }
+
+    private LeaseServer(LeaseCoordinator leases, InetAddress bindAddress, int port) throws IOException {
+        this.leases = leases;
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+
+        route("/acquire", this::acquire);
+        route("/renew", v -> Optional.of(String.valueOf(leases.renew(getLease(v), getLong(v, "leaseMillis")))));
+        route("/complete", v -> Optional.of(String.valueOf(leases.complete(getLease(v), getLong(v, "pages")))));
+        route("/release", v -> Optional.of(String.valueOf(leases.release(getLease(v), getResult(v)))));
+        route("/progress", v -> Optional.of(formatProgress(leases.progress())));
+
+        this.executor = Executors.newFixedThreadPool(4);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static LeaseServer start(LeaseCoordinator leases, int port) throws IOException {
+        return start(leases, InetAddress.getLoopbackAddress(), port);
+    }
+
+    public static LeaseServer start(LeaseCoordinator leases, InetAddress bindAddress, int port) throws IOException {
+        return new LeaseServer(leases, bindAddress, port);
+    }
+
+    private Optional<String> acquire(Map<String, String> params) throws IOException {
+        return leases.acquire(params.get("worker"), getLong(params, "leaseMillis"))//
+                .map(v -> v.getRange().getFrom() + "\t" + v.getRange().getTo() + "\t" + v.getToken() + "\t"
+                        + v.getExpiresAt());
+    }
+
+    static String formatProgress(CrawlProgress progress) {
+        return progress.getPending() + "\t" + progress.getLeased() + "\t" + progress.getDone() + "\t"
+                + progress.getFailed() + "\t" + progress.getWorkers() + "\t" + progress.getReassigned() + "\t" + progress.getPages();
+    }
+
+    private ChunkLease getLease(Map<String, String> params) {
+        return new ChunkLease(new IdRange((int) getLong(params, "from"), (int) getLong(params, "to")),
+                params.get("worker"), getLong(params, "token"), 0);
+    }
+
+    private ChunkResult getResult(Map<String, String> params) {
+        List<Integer> failedIds = new ArrayList<>();
+
+        String failed = params.getOrDefault("failed", "");
+        for (String id : failed.split(",")) {
+            if (!id.isEmpty()) {
+                failedIds.add(Integer.parseInt(id));
+            }
+        }
+
+        return new ChunkResult(getLong(params, "pages"), failedIds);
+    }
+
+    private long getLong(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name + ".");
+        }
+
+        return Long.parseLong(value);
+    }
+
+    private void route(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            try {
+                Optional<String> body = handler.handle(getParams(exchange));
+                respond(exchange, body.isPresent() ? 200 : 204, body.orElse(""));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                respond(exchange, 500, String.valueOf(e.getMessage()));
+            }
+        });
+    }
+
+    private Map<String, String> getParams(HttpExchange exchange) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8.name()),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8.name()));
+                }
+            }
+        }
+
+        return params;
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, status == 204 ? -1 : bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (status != 204) {
+                os.write(bytes);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,194 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class LeaseWorker {
+
+    private static final Counter ACQUIRED = Metrics.counter("crawl.leases.acquired");
+    private static final Counter COMPLETED = Metrics.counter("crawl.leases.completed");
+    private static final Counter LOST = Metrics.counter("crawl.leases.lost");
+    private static final Counter FAILED = Metrics.counter("crawl.leases.failed");
+    private static final Counter RETRIED = Metrics.counter("crawl.leases.retried");
+    private static final Counter RELEASED = Metrics.counter("crawl.leases.released");
+
+    private static final long RETRY_MILLIS = 500;
+    private static final long MAX_RETRY_MILLIS = 30_000;
+    private static final int MAX_RETRIES = 10;
+
+    private final LeaseCoordinator coordinator;
+    private final String workerId;
+    private final int concurrency;
+    private final long leaseMillis;
+
+    private final Set<ChunkLease> active = ConcurrentHashMap.newKeySet();
+
+    @FunctionalInterface
+    public interface ChunkTask {
+        CompletableFuture<ChunkResult> run(IdRange range) throws InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface CoordinatorCall<T> {
+        T call() throws IOException;
+    }
+
+    public LeaseWorker(LeaseCoordinator coordinator, int concurrency, long leaseMillis) {
+        this(coordinator, getDefaultWorkerId(), concurrency, leaseMillis);
+    }
+
+    public LeaseWorker(LeaseCoordinator coordinator, String workerId, int concurrency, long leaseMillis) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be positive, was " + concurrency + ".");
+        }
+        if (leaseMillis < 1_000) {
+            throw new IllegalArgumentException("Lease must last at least a second, was " + leaseMillis + " ms.");
+        }
+
+        this.coordinator = coordinator;
+        this.workerId = workerId;
+        this.concurrency = concurrency;
+        this.leaseMillis = leaseMillis;
+    }
+
+    public static String getDefaultWorkerId() {
+        return ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    public void run(ChunkTask chunkTask) throws InterruptedException {
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor();
+        heartbeat.scheduleWithFixedDelay(this::renewActive, leaseMillis / 3, leaseMillis / 3, TimeUnit.MILLISECONDS);
+
+        ExecutorService es = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            es.submit(() -> drain(chunkTask));
+        }
+
+        try {
+            es.shutdown();
+            es.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } finally {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    private void drain(ChunkTask chunkTask) {
+        try {
+            Optional<ChunkLease> lease;
+            while ((lease = acquire()).isPresent()) {
+                active.add(lease.get());
+                try {
+                    CompletableFuture<ChunkResult> stored = chunkTask.run(lease.get().getRange());
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+
+                    finish(lease.get(), getResult(lease.get(), stored));
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    active.remove(lease.get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private ChunkResult getResult(ChunkLease lease, CompletableFuture<ChunkResult> stored)
+            throws InterruptedException {
+        try {
+            return stored.get(leaseMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            RELEASED.inc();
+
+            List<Integer> all = new ArrayList<>();
+            for (int id = lease.getRange().getFrom(); id < lease.getRange().getTo(); id++) {
+                all.add(id);
+            }
+            return new ChunkResult(0, all);
+        }
+    }
+
+    private void finish(ChunkLease lease, ChunkResult result) throws IOException, InterruptedException {
+        boolean held;
+        if (result.hasFailures()) {
+            FAILED.inc();
+            held = retry(() -> coordinator.release(lease, result));
+        } else {
+            held = retry(() -> coordinator.complete(lease, result.getPages()));
+            if (held) {
+                COMPLETED.inc();
+            }
+        }
+
+        if (!held && active.contains(lease)) {
+            LOST.inc();
+        }
+    }
+
+    private Optional<ChunkLease> acquire() throws IOException, InterruptedException {
+        while (!Thread.currentThread().isInterrupted()) {
+            Optional<ChunkLease> lease = retry(() -> coordinator.acquire(workerId, leaseMillis));
+            if (lease.isPresent()) {
+                ACQUIRED.inc();
+                return lease;
+            }
+
+            if (retry(coordinator::progress).isFinished()) {
+                return Optional.empty();
+            }
+
+            Thread.sleep(Math.min(leaseMillis / 4, 1_000));
+        }
+
+        throw new InterruptedException();
+    }
+
+    private <T> T retry(CoordinatorCall<T> call) throws IOException, InterruptedException {
+        long backoff = RETRY_MILLIS;
+        for (int attempt = 1;; attempt++) {
+            try {
+                return call.call();
+            } catch (IOException e) {
+                if (attempt >= MAX_RETRIES) {
+                    throw e;
+                }
+
+                RETRIED.inc();
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private void renewActive() {
+        for (ChunkLease lease : active) {
+            try {
+                if (!coordinator.renew(lease, leaseMillis)) {
+                    LOST.inc();
+                    active.remove(lease);
+                }
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
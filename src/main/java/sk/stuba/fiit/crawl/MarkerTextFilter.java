@@ -0,0 +1,52 @@
+package sk.stuba.fiit.crawl;
+
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+public class MarkerTextFilter implements PageFilter {
+
+    private static final byte[] TAG_END = { '>' };
+    private static final byte[] TAG_START = { '<' };
+
+    private final byte[] marker;
+    private final byte[] decidedBy;
+    private final Collection<String> rejectedTexts;
+
+    public MarkerTextFilter(String marker, String decidedBy, Collection<String> rejectedTexts) {
+        this.marker = marker.getBytes(StandardCharsets.UTF_8);
+        this.decidedBy = decidedBy.getBytes(StandardCharsets.UTF_8);
+        this.rejectedTexts = rejectedTexts;
+    }
+
+    @Override
+    public Decision inspect(URLConnection response, byte[] head, int length) {
+        int at = indexOf(head, length, marker, 0);
+        if (at < 0) {
+            return indexOf(head, length, decidedBy, 0) >= 0 ? Decision.ACCEPT : Decision.UNDECIDED;
+        }
+
+        int start = indexOf(head, length, TAG_END, at + marker.length) + 1;
+        int end = start <= 0 ? -1 : indexOf(head, length, TAG_START, start);
+        if (end < 0) {
+            return Decision.UNDECIDED;
+        }
+
+        String text = new String(head, start, end - start, StandardCharsets.UTF_8).trim();
+        return rejectedTexts.contains(text) ? Decision.REJECT : Decision.ACCEPT;
+    }
+
+    static int indexOf(byte[] head, int length, byte[] pattern, int from) {
+        outer: for (int i = Math.max(0, from); i <= length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (head[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+}
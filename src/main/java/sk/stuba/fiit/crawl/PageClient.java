@@ -0,0 +1,214 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class PageClient {
+
+    private static final PageClient SHARED = new PageClient("Mozilla/5.0", 10_000, 30_000);
+
+    private static final Pattern CHARSET = Pattern.compile("charset=\"?([^\\s;\"]+)", Pattern.CASE_INSENSITIVE);
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int INSPECT_STEP = 8 * 1024;
+    private static final int MAX_INSPECT = 256 * 1024;
+
+    private static final Counter BYTES_WIRE = Metrics.counter("http.bytes.wire");
+    private static final Counter BYTES_BODY = Metrics.counter("http.bytes.body");
+    private static final Counter REJECTED = Metrics.counter("http.rejected");
+
+    private static final ThreadLocal<Integer> LAST_STATUS_CODE = ThreadLocal.withInitial(() -> -1);
+
+    private final String userAgent;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+    public PageClient(String userAgent, int connectTimeoutMillis, int readTimeoutMillis) {
+        this.userAgent = userAgent;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public static PageClient shared() {
+        return SHARED;
+    }
+
+    static int getLastStatusCode() {
+        return LAST_STATUS_CODE.get();
+    }
+
+    static void clearLastStatusCode() {
+        LAST_STATUS_CODE.set(-1);
+    }
+
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body, String charset, String location) throws IOException;
+    }
+
+    public byte[] getBytes(String url) throws IOException {
+        return getBytes(url, PageFilter.acceptAll());
+    }
+
+    public byte[] getBytes(String url, PageFilter filter) throws IOException {
+        return get(url, filter, (body, charset, location) -> readFully(body));
+    }
+
+    public Document getDocument(String url) throws IOException {
+        return getDocument(url, PageFilter.acceptAll());
+    }
+
+    public Document getDocument(String url, PageFilter filter) throws IOException {
+        return get(url, filter, Jsoup::parse);
+    }
+
+    public <T> T get(String url, PageFilter filter, BodyReader<T> reader) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeoutMillis);
+        connection.setReadTimeout(readTimeoutMillis);
+        connection.setInstanceFollowRedirects(true);
+        connection.setRequestProperty("User-Agent", userAgent);
+        connection.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        connection.setRequestProperty("Connection", "keep-alive");
+
+        int statusCode = connection.getResponseCode();
+        LAST_STATUS_CODE.set(statusCode);
+        if (statusCode >= 400) {
+            discard(connection.getErrorStream());
+            throw new FetchStatusException(url, statusCode);
+        }
+
+        try (InputStream body = decode(new CountingInputStream(connection.getInputStream(), BYTES_WIRE),
+                connection.getContentEncoding())) {
+            InputStream in = inspect(connection, url, new CountingInputStream(body, BYTES_BODY), filter);
+
+            return reader.read(in, getCharset(connection.getContentType()), connection.getURL().toString());
+        }
+    }
+
+    private InputStream inspect(HttpURLConnection connection, String url, InputStream body, PageFilter filter)
+            throws IOException {
+        byte[] head = new byte[0];
+        int length = 0;
+        boolean eof = false;
+
+        PageFilter.Decision decision = filter.inspect(connection, head, 0);
+        while (decision == PageFilter.Decision.UNDECIDED && !eof && length < MAX_INSPECT) {
+            head = Arrays.copyOf(head, length + INSPECT_STEP);
+
+            int n;
+            while (length < head.length && (n = body.read(head, length, head.length - length)) >= 0) {
+                length += n;
+            }
+            eof = length < head.length;
+
+            decision = filter.inspect(connection, head, length);
+        }
+
+        if (decision == PageFilter.Decision.REJECT) {
+            REJECTED.inc();
+            connection.disconnect();
+            throw new PageRejectedException(url, length);
+        }
+
+        return length == 0 ? body : new SequenceInputStream(new ByteArrayInputStream(head, 0, length), body);
+    }
+
+    private InputStream decode(InputStream in, String encoding) throws IOException {
+        if (encoding == null) {
+            return in;
+        }
+
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+        case "gzip":
+        case "x-gzip":
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        case "deflate":
+            return new InflaterInputStream(in, new Inflater(), BUFFER_SIZE);
+        default:
+            return in;
+        }
+    }
+
+    private static String getCharset(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+
+        Matcher m = CHARSET.matcher(contentType);
+        return m.find() ? m.group(1) : null;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE * 4);
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static void discard(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+
+        try (InputStream is = in) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (is.read(buffer) >= 0) {
+            }
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final Counter counter;
+
+        CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.inc();
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.add(n);
+            }
+
+            return n;
+        }
+    }
+}
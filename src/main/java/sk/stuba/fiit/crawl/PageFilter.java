@@ -0,0 +1,17 @@
+package sk.stuba.fiit.crawl;
+
+import java.net.URLConnection;
+
+@FunctionalInterface
+public interface PageFilter {
+
+    enum Decision {
+        ACCEPT, REJECT, UNDECIDED
+    }
+
+    Decision inspect(URLConnection response, byte[] head, int length);
+
+    static PageFilter acceptAll() {
+        return (response, head, length) -> Decision.ACCEPT;
+    }
+}
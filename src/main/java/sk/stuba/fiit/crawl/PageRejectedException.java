@@ -0,0 +1,19 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+
+public class PageRejectedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String url;
+
+    public PageRejectedException(String url, int inspectedBytes) {
+        super("Rejected " + url + " after " + inspectedBytes + " bytes");
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
@@ -0,0 +1,174 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jsoup.HttpStatusException;
+
+import sk.stuba.fiit.metrics.Metrics;
+
+public class PoliteFetcher {
+
+    private static final PoliteFetcher SHARED = new PoliteFetcher(new HostRateLimiter(20, 40),
+            new HostConcurrencyLimiter(4, 1, 64, 0.5, 2.0), 5, 500, 60_000, 0.2);
+
+    private final HostRateLimiter limiter;
+    private final HostConcurrencyLimiter concurrency;
+    private final int maxRetries;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double retryBudgetRatio;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    @FunctionalInterface
+    public interface Fetch<T> {
+        T get() throws IOException;
+    }
+
+    public PoliteFetcher(HostRateLimiter limiter, int maxRetries, long baseBackoffMillis, long maxBackoffMillis,
+            double retryBudgetRatio) {
+        this(limiter, new HostConcurrencyLimiter(4, 1, 64, 0.5, 2.0), maxRetries, baseBackoffMillis, maxBackoffMillis,
+                retryBudgetRatio);
+    }
+
+    public PoliteFetcher(HostRateLimiter limiter, HostConcurrencyLimiter concurrency, int maxRetries,
+            long baseBackoffMillis, long maxBackoffMillis, double retryBudgetRatio) {
+        this.limiter = limiter;
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    public static PoliteFetcher shared() {
+        return SHARED;
+    }
+
+    public <T> T fetch(String url, Fetch<T> fetch) throws IOException, InterruptedException {
+        requests.incrementAndGet();
+
+        AimdLimit limit = concurrency.limitFor(url);
+
+        for (int attempt = 0;; attempt++) {
+            limit.acquire();
+            try {
+                limiter.acquire(url);
+            } catch (InterruptedException e) {
+                limit.cancel();
+                throw e;
+            }
+
+            long start = System.nanoTime();
+            AimdLimit.Outcome outcome = null;
+            try {
+                PageClient.clearLastStatusCode();
+                T result = fetch.get();
+                outcome = AimdLimit.Outcome.SUCCESS;
+                recordFetch(url, start, getStatusLabel());
+                return result;
+            } catch (IOException e) {
+                outcome = isOverloaded(e) ? AimdLimit.Outcome.DROPPED : AimdLimit.Outcome.SUCCESS;
+
+                recordFetch(url, start, getStatusLabel(e));
+                if (!isRetryable(e) || attempt >= maxRetries || !tryTakeRetry()) {
+                    throw e;
+                }
+
+                Metrics.counter("fetch.retries").inc();
+                limiter.pause(url, getBackoffMillis(attempt));
+            } catch (RuntimeException e) {
+                recordFetch(url, start, "error");
+                throw e;
+            } finally {
+                if (outcome != null) {
+                    limit.release(System.nanoTime() - start, outcome);
+                } else {
+                    limit.cancel();
+                }
+            }
+        }
+    }
+
+    private void recordFetch(String url, long start, String status) {
+        String host = HostRateLimiter.getHost(url);
+
+        Metrics.histogram("fetch." + host + ".latency").recordSince(start);
+        Metrics.counter("fetch." + host + ".status." + status).inc();
+    }
+
+    private String getStatusLabel() {
+        int statusCode = PageClient.getLastStatusCode();
+        return statusCode > 0 ? String.valueOf(statusCode) : "ok";
+    }
+
+    private String getStatusLabel(IOException e) {
+        if (e instanceof PageRejectedException) {
+            return "rejected";
+        }
+        if (e instanceof SocketTimeoutException) {
+            return "timeout";
+        }
+
+        int statusCode = getStatusCode(e);
+        return statusCode > 0 ? String.valueOf(statusCode) : "error";
+    }
+
+    private boolean tryTakeRetry() {
+        long allowed = 10 + (long) (requests.get() * retryBudgetRatio);
+        long taken;
+        do {
+            taken = retries.get();
+            if (taken >= allowed) {
+                return false;
+            }
+        } while (!retries.compareAndSet(taken, taken + 1));
+
+        return true;
+    }
+
+    private long getBackoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private boolean isRetryable(IOException e) {
+        if (e instanceof SocketTimeoutException) {
+            return true;
+        }
+
+        return isThrottlingStatus(getStatusCode(e));
+    }
+
+    private boolean isOverloaded(IOException e) {
+        if (e instanceof PageRejectedException) {
+            return false;
+        }
+
+        int statusCode = getStatusCode(e);
+        if (statusCode > 0) {
+            return statusCode >= 500 || isThrottlingStatus(statusCode);
+        }
+
+        return true;
+    }
+
+    private boolean isThrottlingStatus(int statusCode) {
+        return statusCode == 429 || statusCode == 503;
+    }
+
+    private int getStatusCode(IOException e) {
+        if (e instanceof FetchStatusException) {
+            return ((FetchStatusException) e).getStatusCode();
+        }
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).getStatusCode();
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,103 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class RemoteLeaseCoordinator implements LeaseCoordinator {
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private final String baseUrl;
+
+    public RemoteLeaseCoordinator(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    @Override
+    public Optional<ChunkLease> acquire(String workerId, long leaseMillis) throws IOException {
+        Optional<String> body = call("/acquire?worker=" + encode(workerId) + "&leaseMillis=" + leaseMillis);
+        if (!body.isPresent()) {
+            return Optional.empty();
+        }
+
+        String[] tokens = body.get().split("\t");
+        return Optional.of(new ChunkLease(new IdRange(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1])),
+                workerId, Long.parseLong(tokens[2]), Long.parseLong(tokens[3])));
+    }
+
+    @Override
+    public boolean renew(ChunkLease lease, long leaseMillis) throws IOException {
+        return Boolean.parseBoolean(call("/renew?" + getLeaseParams(lease) + "&leaseMillis=" + leaseMillis).orElse(""));
+    }
+
+    @Override
+    public boolean complete(ChunkLease lease, long pages) throws IOException {
+        return Boolean.parseBoolean(call("/complete?" + getLeaseParams(lease) + "&pages=" + pages).orElse(""));
+    }
+
+    @Override
+    public boolean release(ChunkLease lease, ChunkResult result) throws IOException {
+        String failed = result.getFailedIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        return Boolean.parseBoolean(call("/release?" + getLeaseParams(lease) + "&pages=" + result.getPages()
+                + "&failed=" + encode(failed)).orElse(""));
+    }
+
+    @Override
+    public CrawlProgress progress() throws IOException {
+        String[] tokens = call("/progress").orElse("").split("\t");
+        if (tokens.length != 7) {
+            throw new IOException("Unexpected progress response from " + baseUrl + ".");
+        }
+
+        return new CrawlProgress(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]),
+                Integer.parseInt(tokens[3]), Integer.parseInt(tokens[4]), Integer.parseInt(tokens[5]),
+                Long.parseLong(tokens[6]));
+    }
+
+    private String getLeaseParams(ChunkLease lease) throws IOException {
+        return "from=" + lease.getRange().getFrom() + "&to=" + lease.getRange().getTo() + "&token=" + lease.getToken()
+                + "&worker=" + encode(lease.getWorkerId());
+    }
+
+    private String encode(String value) throws IOException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+
+    private Optional<String> call(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+
+        try {
+            int status = connection.getResponseCode();
+            if (status == 204) {
+                return Optional.empty();
+            }
+            if (status != 200) {
+                throw new FetchStatusException(baseUrl + path, status);
+            }
+
+            try (InputStream is = connection.getInputStream()) {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                byte[] buffer = new byte[1_024];
+                int n;
+                while ((n = is.read(buffer)) > 0) {
+                    bos.write(buffer, 0, n);
+                }
+
+                return Optional.of(new String(bos.toByteArray(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
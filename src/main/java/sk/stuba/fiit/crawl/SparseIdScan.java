@@ -0,0 +1,145 @@
+package sk.stuba.fiit.crawl;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.Random;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class SparseIdScan {
+
+    public enum Result {
+        FOUND, MISSING, REJECTED, FAILED
+    }
+
+    @FunctionalInterface
+    public interface Probe {
+        Result probe(int id) throws InterruptedException;
+    }
+
+    private static final Counter PROBED = Metrics.counter("crawl.ids.probed");
+    private static final Counter FOUND = Metrics.counter("crawl.ids.found");
+    private static final Counter CACHED = Metrics.counter("crawl.ids.skipped.cached");
+    private static final Counter SKIPPED = Metrics.counter("crawl.ids.skipped.sparse");
+    private static final Counter REJECTED = Metrics.counter("crawl.ids.rejected");
+
+    private final IdNegativeCache deadIds;
+    private final IdNegativeCache rejectedIds;
+    private final BitSet seeds;
+    private final int deadStretch;
+    private final int maxStride;
+    private final Random random;
+
+    public SparseIdScan(IdNegativeCache deadIds, IdNegativeCache rejectedIds, BitSet seeds, int deadStretch,
+            int maxStride) {
+        this(deadIds, rejectedIds, seeds, deadStretch, maxStride, new Random());
+    }
+
+    public SparseIdScan(IdNegativeCache deadIds, IdNegativeCache rejectedIds, BitSet seeds, int deadStretch,
+            int maxStride, Random random) {
+        if (deadStretch < 1 || maxStride < 1) {
+            throw new IllegalArgumentException("Invalid dead stretch " + deadStretch + " or stride " + maxStride + ".");
+        }
+
+        this.deadIds = deadIds;
+        this.rejectedIds = rejectedIds;
+        this.seeds = seeds;
+        this.deadStretch = deadStretch;
+        this.maxStride = maxStride;
+        this.random = random;
+    }
+
+    public int scan(IdRange range, Probe probe) throws InterruptedException {
+        int found = 0;
+        int visited = 0;
+        int misses = 0;
+        int stride = 1;
+        int last = range.getFrom() - 1;
+        int phase = getPhase();
+
+        for (int id = range.getFrom(); id < range.getTo(); id = next(id, stride, phase, range.getTo())) {
+            Optional<Result> cached = getCached(id);
+            Result result = cached.isPresent() ? cached.get() : probe(id, probe);
+            visited++;
+
+            if (result == Result.FOUND) {
+                found++;
+                misses = 0;
+                stride = 1;
+
+                for (int i = id - 1; i > last && misses < deadStretch; i--) {
+                    Optional<Result> gapCached = getCached(i);
+                    Result gap = gapCached.isPresent() ? gapCached.get() : probe(i, probe);
+                    visited++;
+
+                    if (gap == Result.FOUND) {
+                        found++;
+                        misses = 0;
+                    } else if (gap == Result.MISSING && !gapCached.isPresent()) {
+                        misses++;
+                    }
+                }
+                misses = 0;
+            } else if (result == Result.MISSING && !cached.isPresent() && ++misses >= deadStretch) {
+                stride = Math.min(maxStride, stride * 2);
+            }
+
+            last = id;
+        }
+
+        SKIPPED.add(range.size() - visited);
+
+        try {
+            deadIds.saveIfDue();
+            rejectedIds.saveIfDue();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return found;
+    }
+
+    private synchronized int getPhase() {
+        return random.nextInt(maxStride);
+    }
+
+    private int next(int id, int stride, int phase, int to) {
+        long aligned = id + 1 + Math.floorMod(phase - id - 1, stride);
+        int next = (int) Math.min(aligned, to);
+
+        int seed = seeds.nextSetBit(id + 1);
+        return seed >= 0 && seed < next ? seed : next;
+    }
+
+    private Optional<Result> getCached(int id) {
+        if (!seeds.get(id) && deadIds.isDead(id)) {
+            CACHED.inc();
+            return Optional.of(Result.MISSING);
+        }
+        if (!seeds.get(id) && rejectedIds.isDead(id)) {
+            CACHED.inc();
+            return Optional.of(Result.REJECTED);
+        }
+
+        return Optional.empty();
+    }
+
+    private Result probe(int id, Probe probe) throws InterruptedException {
+        PROBED.inc();
+        Result result = probe.probe(id);
+        if (result == Result.FOUND) {
+            FOUND.inc();
+            deadIds.markAlive(id);
+            rejectedIds.markAlive(id);
+        } else if (result == Result.MISSING) {
+            deadIds.markDead(id);
+        } else if (result == Result.REJECTED) {
+            REJECTED.inc();
+            rejectedIds.markDead(id);
+        }
+
+        return result;
+    }
+}
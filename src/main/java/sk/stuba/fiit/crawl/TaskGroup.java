@@ -0,0 +1,44 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.concurrent.ExecutorService;
+
+class TaskGroup {
+
+    private final ExecutorService executor;
+
+    private int pending;
+
+    TaskGroup(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    synchronized void submit(Runnable task) {
+        pending++;
+        try {
+            executor.submit(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    done();
+                }
+            });
+        } catch (RuntimeException e) {
+            pending--;
+            throw e;
+        }
+    }
+
+    private synchronized void done() {
+        if (--pending == 0) {
+            notifyAll();
+        }
+    }
+
+    synchronized void await() throws InterruptedException {
+        while (pending > 0) {
+            wait();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package sk.stuba.fiit.crawl;
+
+import java.util.concurrent.TimeUnit;
+
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    public TokenBucket(double permitsPerSecond, double burst) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Invalid rate " + permitsPerSecond + "/s with burst " + burst + ".");
+        }
+
+        this.capacity = burst;
+        this.tokensPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+        this.pausedUntil = lastRefill;
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryAcquire()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public synchronized void pause(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+
+        tokens = Math.min(tokens, 1);
+        lastRefill = pausedUntil;
+    }
+
+    private synchronized long tryAcquire() {
+        long now = System.nanoTime();
+        if (now - pausedUntil < 0) {
+            return pausedUntil - now;
+        }
+
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+
+        return Math.max(1, (long) ((1 - tokens) / tokensPerNano));
+    }
+}
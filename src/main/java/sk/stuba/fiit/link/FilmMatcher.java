@@ -0,0 +1,227 @@
+package sk.stuba.fiit.link;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.parse.JsonBatchWriter;
+import sk.stuba.fiit.parse.ParallelParse;
+import sk.stuba.fiit.util.LongMultiIndex;
+
+public class FilmMatcher {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    public static final double DEFAULT_MIN_SCORE = 0.5;
+
+    private static final int MAX_BLOCK_SIZE = 1_000;
+    private static final int YEAR_TOLERANCE = 1;
+    private static final int CHUNK_SIZE = 4_096;
+
+    private static final double TITLE_WEIGHT = 0.35;
+    private static final double DIRECTOR_WEIGHT = 0.30;
+    private static final double CAST_WEIGHT = 0.20;
+    private static final double YEAR_WEIGHT = 0.15;
+
+    private static final Counter CANDIDATES = Metrics.counter("link.candidates");
+    private static final Counter MATCHED = Metrics.counter("link.matched");
+    private static final Counter UNMATCHED = Metrics.counter("link.unmatched");
+    private static final Counter TARGETS = Metrics.counter("link.targets");
+    private static final Counter BLOCKING_KEYS = Metrics.counter("link.blocking.keys");
+    private static final Counter SKIPPED_BLOCKS = Metrics.counter("link.blocks.skipped");
+
+    private final List<FilmRecord> targets;
+    private final LongMultiIndex index;
+    private final double minScore;
+
+    public FilmMatcher(List<FilmRecord> targets, double minScore) {
+        this.targets = targets;
+        this.index = new LongMultiIndex(targets.size() * 4);
+        this.minScore = minScore;
+
+        for (int id = 0; id < targets.size(); id++) {
+            FilmRecord target = targets.get(id);
+            for (long key : target.getBlockingKeys(target.getYear())) {
+                index.add(key, id);
+            }
+        }
+
+        index.trim();
+    }
+
+    public static void link(Path csfdDir, Path imdbDir, Path destDir, int workers, int batchSize) throws IOException {
+        Files.createDirectories(destDir);
+
+        try (ParallelParse parallel = new ParallelParse(workers, "link")) {
+            List<FilmRecord> targets = new ArrayList<>();
+            forEachChunk(imdbDir, "titles_", chunk -> parallel.forEachOrdered(chunk,
+                    v -> Optional.of(toFilmRecord(v, false)), targets::add));
+
+            FilmMatcher matcher = new FilmMatcher(targets, DEFAULT_MIN_SCORE);
+            TARGETS.add(targets.size());
+            BLOCKING_KEYS.add(matcher.index.size());
+
+            try (JsonBatchWriter writer = new JsonBatchWriter(destDir, "film_links_", batchSize)) {
+                forEachChunk(csfdDir, "csfd_films_", chunk -> parallel.forEachOrdered(chunk,
+                        v -> matcher.match(toFilmRecord(v, true)), writer::write));
+            }
+        }
+    }
+
+    public Optional<JsonNode> match(FilmRecord record) {
+        int[] candidates = getCandidates(record);
+        CANDIDATES.add(candidates.length);
+
+        int best = -1;
+        double bestScore = minScore;
+        for (int id : candidates) {
+            double score = score(record, targets.get(id));
+            if (score >= bestScore && (best < 0 || score > bestScore)) {
+                best = id;
+                bestScore = score;
+            }
+        }
+
+        if (best < 0) {
+            UNMATCHED.inc();
+            return Optional.empty();
+        }
+
+        MATCHED.inc();
+
+        ObjectNode on = om.createObjectNode();
+        on.put("id", record.getId() + "-" + targets.get(best).getId());
+        on.put("csfd", record.getId());
+        on.put("imdb", targets.get(best).getId());
+        on.put("score", Math.round(bestScore * 1_000) / 1_000.0);
+
+        return Optional.of(on);
+    }
+
+    private int[] getCandidates(FilmRecord record) {
+        int[] candidates = new int[16];
+        int count = 0;
+
+        int tolerance = record.getYear() > 0 ? YEAR_TOLERANCE : 0;
+        for (int year = record.getYear() - tolerance; year <= record.getYear() + tolerance; year++) {
+            for (long key : record.getBlockingKeys(year)) {
+                int[] ids = index.get(key);
+                if (ids.length > MAX_BLOCK_SIZE) {
+                    SKIPPED_BLOCKS.inc();
+                    continue;
+                }
+
+                if (count + ids.length > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, count + ids.length));
+                }
+
+                System.arraycopy(ids, 0, candidates, count, ids.length);
+                count += ids.length;
+            }
+        }
+
+        Arrays.sort(candidates, 0, count);
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || candidates[unique - 1] != candidates[i]) {
+                candidates[unique++] = candidates[i];
+            }
+        }
+
+        return Arrays.copyOf(candidates, unique);
+    }
+
+    static double score(FilmRecord a, FilmRecord b) {
+        double score = TITLE_WEIGHT * jaccard(a.getTitleTokens(), b.getTitleTokens());
+        double weights = TITLE_WEIGHT;
+
+        if (a.getDirectors().length > 0 && b.getDirectors().length > 0) {
+            score += DIRECTOR_WEIGHT * overlap(a.getDirectors(), b.getDirectors());
+            weights += DIRECTOR_WEIGHT;
+        }
+
+        if (a.getCast().length > 0 && b.getCast().length > 0) {
+            score += CAST_WEIGHT * overlap(a.getCast(), b.getCast());
+            weights += CAST_WEIGHT;
+        }
+
+        if (a.getYear() > 0 && b.getYear() > 0) {
+            int delta = Math.abs(a.getYear() - b.getYear());
+            score += YEAR_WEIGHT * (delta == 0 ? 1.0 : delta <= YEAR_TOLERANCE ? 0.5 : 0.0);
+            weights += YEAR_WEIGHT;
+        }
+
+        return score / weights;
+    }
+
+    private static double jaccard(String[] a, String[] b) {
+        int common = countCommon(a, b);
+        int union = a.length + b.length - common;
+
+        return union == 0 ? 0.0 : (double) common / union;
+    }
+
+    private static double overlap(String[] a, String[] b) {
+        return (double) countCommon(a, b) / Math.min(a.length, b.length);
+    }
+
+    private static int countCommon(String[] a, String[] b) {
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length;) {
+            int c = a[i].compareTo(b[j]);
+            if (c == 0) {
+                common++;
+                i++;
+                j++;
+            } else if (c < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return common;
+    }
+
+    private static FilmRecord toFilmRecord(JsonNode record, boolean csfd) {
+        try {
+            return csfd ? FilmRecord.fromCsfd(record) : FilmRecord.fromImdb(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(List<JsonNode> chunk) throws IOException;
+    }
+
+    private static void forEachChunk(Path srcDir, String filePrefix, ChunkConsumer consumer) throws IOException {
+        List<JsonNode> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        ParsedRecords.forEachLive(srcDir, filePrefix, record -> {
+            chunk.add(record);
+
+            if (chunk.size() == CHUNK_SIZE) {
+                consumer.accept(chunk);
+                chunk.clear();
+            }
+        });
+
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package sk.stuba.fiit.link;
+
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.util.BulkEncoder;
+
+public class FilmRecord {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList("the", "a", "an", "of", "and", "in",
+            "on", "to", "la", "le", "les", "el", "il", "der", "die", "das", "i", "v", "na", "se", "z", "do"));
+
+    private static final int MAX_CAST = 15;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final char TITLE_KEY = 't';
+    private static final char DIRECTOR_KEY = 'd';
+
+    private final String id;
+    private final String[] titleTokens;
+    private final int year;
+    private final String[] directors;
+    private final String[] cast;
+
+    private FilmRecord(String id, String[] titleTokens, int year, String[] directors, String[] cast) {
+        this.id = id;
+        this.titleTokens = titleTokens;
+        this.year = year;
+        this.directors = directors;
+        this.cast = cast;
+    }
+
+    public static FilmRecord fromCsfd(JsonNode record) throws IOException {
+        return new FilmRecord(BulkEncoder.getDocumentId(record), getTokens(record.path("nazov").asText()),
+                getYear(record.path("rok").asText()), getNames(record.path("rezia"), Integer.MAX_VALUE),
+                getNames(record.path("hraju"), MAX_CAST));
+    }
+
+    public static FilmRecord fromImdb(JsonNode record) throws IOException {
+        return new FilmRecord(BulkEncoder.getDocumentId(record), getTokens(record.path("name").asText()),
+                getYear(record.path("publishDate").asText()), getNames(record.path("directors"), Integer.MAX_VALUE),
+                getNames(record.path("cast"), MAX_CAST));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    String[] getTitleTokens() {
+        return titleTokens;
+    }
+
+    String[] getDirectors() {
+        return directors;
+    }
+
+    String[] getCast() {
+        return cast;
+    }
+
+    long[] getBlockingKeys(int year) {
+        long[] keys = new long[titleTokens.length + directors.length];
+        int count = 0;
+
+        for (String token : titleTokens) {
+            if (!STOP_WORDS.contains(token)) {
+                keys[count++] = getBlockingKey(TITLE_KEY, token, year);
+            }
+        }
+
+        for (String director : directors) {
+            keys[count++] = getBlockingKey(DIRECTOR_KEY, getSurname(director), year);
+        }
+
+        return Arrays.copyOf(keys, count);
+    }
+
+    private static String normalize(String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] getTokens(String title) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(title));
+
+        String[] sorted = tokens.toArray(new String[tokens.size()]);
+        Arrays.sort(sorted);
+
+        return sorted;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+
+        return tokens;
+    }
+
+    private static int getYear(String date) {
+        Matcher m = YEAR.matcher(date);
+
+        return m.find() ? Integer.parseInt(m.group()) : 0;
+    }
+
+    private static String[] getNames(JsonNode people, int limit) {
+        Set<String> names = new LinkedHashSet<>();
+        for (JsonNode person : people) {
+            if (names.size() == limit) {
+                break;
+            }
+
+            String name = String.join(" ", tokenize(person.isObject() ? person.path("name").asText() : person.asText()));
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+
+        String[] sorted = names.toArray(new String[names.size()]);
+        Arrays.sort(sorted);
+
+        return sorted;
+    }
+
+    private static String getSurname(String name) {
+        return name.substring(name.lastIndexOf(' ') + 1);
+    }
+
+    private static long getBlockingKey(char kind, String value, int year) {
+        long h = (FNV_OFFSET ^ kind) * FNV_PRIME;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+
+        return (h ^ year) * FNV_PRIME;
+    }
+}
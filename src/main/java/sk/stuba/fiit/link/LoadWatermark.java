@@ -0,0 +1,83 @@
+package sk.stuba.fiit.link;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public class LoadWatermark {
+
+    private final Path srcDir;
+    private final String filePrefix;
+    private final Path file;
+    private final int records;
+    private final int tombstones;
+
+    private LoadWatermark(Path srcDir, String filePrefix, Path file, int records, int tombstones) {
+        this.srcDir = srcDir;
+        this.filePrefix = filePrefix;
+        this.file = file;
+        this.records = records;
+        this.tombstones = tombstones;
+    }
+
+    public static LoadWatermark open(Path srcDir, String filePrefix, String target) throws IOException {
+        Path file = srcDir.resolve(filePrefix + "loaded_" + target + ".tsv");
+        if (!Files.exists(file)) {
+            return new LoadWatermark(srcDir, filePrefix, file, 0, 0);
+        }
+
+        int records = -1;
+        int tombstones = -1;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\t");
+            if (parts.length == 2 && parts[0].equals("records")) {
+                records = Integer.parseInt(parts[1]);
+            } else if (parts.length == 2 && parts[0].equals("tombstones")) {
+                tombstones = Integer.parseInt(parts[1]);
+            } else {
+                throw new IOException("Malformed load watermark line in " + file + ": " + line);
+            }
+        }
+
+        if (records < 0 || tombstones < 0) {
+            throw new IOException("Load watermark " + file + " is incomplete.");
+        }
+
+        return new LoadWatermark(srcDir, filePrefix, file, records, tombstones);
+    }
+
+    public LoadWatermark latest() throws IOException {
+        return new LoadWatermark(srcDir, filePrefix, file, ParsedRecords.getLastBatch(srcDir, filePrefix),
+                ParsedRecords.getLastTombstoneBatch(srcDir, filePrefix));
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public int getTombstones() {
+        return tombstones;
+    }
+
+    public boolean isBehind(LoadWatermark other) {
+        return records < other.records || tombstones < other.tombstones;
+    }
+
+    public void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.append("records\t").append(String.valueOf(records)).append('\n');
+            writer.append("tombstones\t").append(String.valueOf(tombstones)).append('\n');
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public String toString() {
+        return "records " + records + ", tombstones " + tombstones;
+    }
+}
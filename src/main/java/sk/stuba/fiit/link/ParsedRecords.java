@@ -0,0 +1,126 @@
+package sk.stuba.fiit.link;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import sk.stuba.fiit.parse.ParseManifest;
+import sk.stuba.fiit.util.BulkEncoder;
+
+public class ParsedRecords {
+
+    private ParsedRecords() {
+    }
+
+    private static final String TOMBSTONES = "tombstones_";
+
+    public static void forEachLive(Path srcDir, String filePrefix, BulkEncoder.RecordConsumer consumer)
+            throws IOException {
+        forEachLive(srcDir, filePrefix, 0, Integer.MAX_VALUE, consumer);
+    }
+
+    public static void forEachLive(Path srcDir, String filePrefix, int afterBatch, int lastBatch,
+            BulkEncoder.RecordConsumer consumer) throws IOException {
+        Optional<Map<String, String>> live = getLiveFiles(srcDir.resolve(filePrefix + "manifest.tsv"));
+
+        for (Path file : getBatchFiles(srcDir, filePrefix, afterBatch, lastBatch)) {
+            String fileName = file.getFileName().toString();
+
+            BulkEncoder.forEachRecord(file, record -> {
+                if (BulkEncoder.isTombstone(record)) {
+                    return;
+                }
+
+                if (!live.isPresent() || fileName.equals(live.get().get(BulkEncoder.getDocumentId(record)))) {
+                    consumer.accept(record);
+                }
+            });
+        }
+    }
+
+    public static void forEachDeleted(Path srcDir, String filePrefix, BulkEncoder.RecordConsumer consumer)
+            throws IOException {
+        forEachDeleted(srcDir, filePrefix, 0, Integer.MAX_VALUE, consumer);
+    }
+
+    public static void forEachDeleted(Path srcDir, String filePrefix, int afterBatch, int lastBatch,
+            BulkEncoder.RecordConsumer consumer) throws IOException {
+        Optional<Map<String, String>> live = getLiveFiles(srcDir.resolve(filePrefix + "manifest.tsv"));
+        if (!live.isPresent()) {
+            return;
+        }
+
+        Set<String> deleted = new HashSet<>();
+        for (Path file : getBatchFiles(srcDir, filePrefix + TOMBSTONES, afterBatch, lastBatch)) {
+            BulkEncoder.forEachRecord(file, record -> {
+                String documentId = BulkEncoder.getDocumentId(record);
+
+                if (!live.get().containsKey(documentId) && deleted.add(documentId)) {
+                    consumer.accept(record);
+                }
+            });
+        }
+    }
+
+    private static Optional<Map<String, String>> getLiveFiles(Path manifestFile) throws IOException {
+        if (!Files.exists(manifestFile)) {
+            return Optional.empty();
+        }
+
+        ParseManifest manifest = ParseManifest.open(manifestFile);
+
+        Map<String, String> live = new HashMap<>();
+        for (String key : manifest.keys()) {
+            manifest.get(key).filter(ParseManifest.Entry::hasOutput)
+                    .ifPresent(v -> live.put(v.getDocumentId(), v.getOutputFile()));
+        }
+
+        return Optional.of(live);
+    }
+
+    public static int getLastBatch(Path srcDir, String filePrefix) throws IOException {
+        Pattern batchFile = getBatchPattern(filePrefix);
+
+        try (Stream<Path> files = Files.list(srcDir)) {
+            return files.mapToInt(v -> getBatchNumber(batchFile, v)).max().orElse(0);
+        }
+    }
+
+    public static int getLastTombstoneBatch(Path srcDir, String filePrefix) throws IOException {
+        return getLastBatch(srcDir, filePrefix + TOMBSTONES);
+    }
+
+    private static List<Path> getBatchFiles(Path srcDir, String filePrefix, int afterBatch, int lastBatch)
+            throws IOException {
+        Pattern batchFile = getBatchPattern(filePrefix);
+
+        try (Stream<Path> files = Files.list(srcDir)) {
+            return files.filter(v -> batchFile.matcher(v.getFileName().toString()).matches())//
+                    .filter(v -> getBatchNumber(batchFile, v) > afterBatch)//
+                    .filter(v -> getBatchNumber(batchFile, v) <= lastBatch)//
+                    .sorted(Comparator.comparingInt(v -> getBatchNumber(batchFile, v)))//
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Pattern getBatchPattern(String filePrefix) {
+        return Pattern.compile(Pattern.quote(filePrefix) + "(\\d+)\\.json");
+    }
+
+    private static int getBatchNumber(Pattern batchFile, Path file) {
+        Matcher m = batchFile.matcher(file.getFileName().toString());
+
+        return m.matches() ? Integer.parseInt(m.group(1)) : 0;
+    }
+}
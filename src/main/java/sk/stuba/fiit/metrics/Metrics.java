@@ -0,0 +1,93 @@
+package sk.stuba.fiit.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class Metrics {
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    private Metrics() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this),
+                    new ObjectName("sk.stuba.fiit:type=Metrics"));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    public static Counter counter(String name) {
+        return INSTANCE.counters.computeIfAbsent(name, v -> new Counter());
+    }
+
+    public static Histogram histogram(String name) {
+        return INSTANCE.histograms.computeIfAbsent(name, v -> new Histogram());
+    }
+
+    public static void gauge(String name, LongSupplier value) {
+        INSTANCE.gauges.put(name, value);
+    }
+
+    public static void removeGauge(String name) {
+        INSTANCE.gauges.remove(name);
+    }
+
+    public MetricsReporter startReporting(long periodSeconds) {
+        return new MetricsReporter(this, periodSeconds);
+    }
+
+    SortedMap<String, Long> getCounters() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            values.put(e.getKey(), e.getValue().get());
+        }
+
+        return values;
+    }
+
+    SortedMap<String, Long> getGauges() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongSupplier> e : gauges.entrySet()) {
+            values.put(e.getKey(), e.getValue().getAsLong());
+        }
+
+        return values;
+    }
+
+    SortedMap<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    SortedMap<String, Object> snapshot() {
+        SortedMap<String, Object> values = new TreeMap<>();
+        values.putAll(getCounters());
+        values.putAll(getGauges());
+
+        for (Map.Entry<String, Histogram> e : getHistograms().entrySet()) {
+            Histogram h = e.getValue();
+            values.put(e.getKey() + ".count", h.getCount());
+            values.put(e.getKey() + ".meanMillis", h.getMeanMillis());
+            values.put(e.getKey() + ".p50Millis", h.getPercentileMillis(0.5));
+            values.put(e.getKey() + ".p99Millis", h.getPercentileMillis(0.99));
+            values.put(e.getKey() + ".maxMillis", h.getMaxMillis());
+        }
+
+        return values;
+    }
+}
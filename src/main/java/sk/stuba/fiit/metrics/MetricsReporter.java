@@ -0,0 +1,67 @@
+package sk.stuba.fiit.metrics;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsReporter implements Closeable {
+
+    private final Metrics metrics;
+    private final long periodSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Long> lastCounters = new HashMap<>();
+    private final Map<String, Long> lastHistogramCounts = new HashMap<>();
+
+    MetricsReporter(Metrics metrics, long periodSeconds) {
+        this.metrics = metrics;
+        this.periodSeconds = periodSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleAtFixedRate(this::report, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void report() {
+        StringBuilder sb = new StringBuilder("[metrics]");
+
+        for (Map.Entry<String, Long> e : metrics.getCounters().entrySet()) {
+            long delta = e.getValue() - lastCounters.getOrDefault(e.getKey(), 0L);
+            lastCounters.put(e.getKey(), e.getValue());
+
+            if (delta > 0) {
+                sb.append(String.format(Locale.ROOT, " %s=%d (%.1f/s)", e.getKey(), e.getValue(),
+                        delta / (double) periodSeconds));
+            }
+        }
+
+        for (Map.Entry<String, Histogram> e : metrics.getHistograms().entrySet()) {
+            Histogram h = e.getValue();
+            long count = h.getCount();
+            if (count != lastHistogramCounts.getOrDefault(e.getKey(), 0L)) {
+                sb.append(String.format(Locale.ROOT, " %s p50=%.1fms p99=%.1fms max=%.1fms", e.getKey(),
+                        h.getPercentileMillis(0.5), h.getPercentileMillis(0.99), h.getMaxMillis()));
+            }
+            lastHistogramCounts.put(e.getKey(), count);
+        }
+
+        for (Map.Entry<String, Long> e : metrics.getGauges().entrySet()) {
+            sb.append(' ').append(e.getKey()).append('=').append(e.getValue());
+        }
+
+        System.out.println(sb);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        report();
+    }
+}
@@ -1,94 +1,241 @@
 package sk.stuba.fiit.parse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import sk.stuba.fiit.crawl.CSFDCrawler;
+import sk.stuba.fiit.sink.JsonFileSink;
+import sk.stuba.fiit.sink.RecordBatcher;
+import sk.stuba.fiit.sink.RecordSink;
+import sk.stuba.fiit.store.PageArchive;
 import sk.stuba.fiit.util.IOUtils;
+import sk.stuba.fiit.util.SimHash;
 
 public class CSFDParser implements Parser {
 
     private static final ObjectMapper om = new ObjectMapper();
 
-    private static int count = 1;
+    private static final String FILM_TYPE = "filmType";
+    private static final String NAME = "name";
+    private static final String GENRE = "genre";
+    private static final String ORIGIN = "origin";
+    private static final String YEAR = "year";
+    private static final String DIRECTORS = "directors";
+    private static final String SCENARISTS = "scenarists";
+    private static final String ACTORS = "actors";
+    private static final String CONTENT = "content";
+    private static final String RATING = "rating";
+    private static final String COMMENTS = "comments";
+
+    static final FieldExtractor FILM_FIELDS = FieldExtractor.builder()//
+            .first(FILM_TYPE, "span[class=film-type]")//
+            .first(NAME, "h1[itemprop=name]")//
+            .first(GENRE, "p[class=genre]")//
+            .first(ORIGIN, "p[class=origin]")//
+            .first(YEAR, "span[itemprop=dateCreated]")//
+            .first(DIRECTORS, "h4:contains(Režie:)")//
+            .first(SCENARISTS, "h4:contains(Scénář:)")//
+            .first(ACTORS, "h4:contains(Hrají:)")//
+            .first(CONTENT, "div[data-truncate=570]")//
+            .first(RATING, "div[id=rating]")//
+            .first(COMMENTS, "div[class=content comments]")//
+            .build();
+
+    private static final Evaluator A = QueryParser.parse("a");
+    private static final Evaluator LI = QueryParser.parse("li");
+    private static final Evaluator META = QueryParser.parse("meta");
+    private static final Evaluator AVERAGE = QueryParser.parse("h2[class=average]");
+    private static final Evaluator AUTHOR = QueryParser.parse("h5[class=author]");
+    private static final Evaluator DATE = QueryParser.parse("span[class=date desc]");
+    private static final Evaluator POST = QueryParser.parse("p[class=post]");
+
+    private static final byte[] MAIN_CONTENT_START = "<h1 itemprop=\"name\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MAIN_CONTENT_END = "class=\"content comments\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADING = "h4".getBytes(StandardCharsets.US_ASCII);
+
+    private static final Pattern NON_DIGIT = Pattern.compile("\\D");
+    private static final Pattern PARENTHESES = Pattern.compile("\\(|\\)");
+    private static final Pattern DATE_SUFFIX = Pattern.compile("\\(\\d+\\.\\d+\\.\\d+\\)$");
+
+    private static final Path DEST_PATH = Paths.get("src/main/resources/data/csfd/parsed");
+
+    private final Path archiveDir;
+    private final Path destPath;
+    private final int workers;
+    private final int batchSize;
+
+    public CSFDParser() {
+        this(Runtime.getRuntime().availableProcessors(), 1_000);
+    }
+
+    public CSFDParser(int workers, int batchSize) {
+        this(CSFDCrawler.ARCHIVE_DIR, DEST_PATH, workers, batchSize);
+    }
+
+    public CSFDParser(Path archiveDir, Path destPath, int workers, int batchSize) {
+        this.archiveDir = archiveDir;
+        this.destPath = destPath;
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
 
     @Override
-    public void parseAll() throws IOException {
-        Path srcPath = Paths.get("/home/miroslav/Desktop/SKOLA/FIIT_STUBA/Ing/3.semester/VINF_I/csfd_pages");
-        Path destPath = Paths.get("src/main/resources/data/csfd/parsed");
+    public void parseAll(RecordSink sink) throws IOException {
+        try (PageArchive archive = PageArchive.open(archiveDir)) {
+            parseAndSaveFilms(archive, destPath, sink);
+        }
+    }
+
+    public void parseAndSaveFilms(PageArchive archive, Path destPath) throws IOException {
+        parseAndSaveFilms(archive, destPath, RecordSink.discard());
+    }
 
-        parseAndSaveFilms(srcPath, destPath, 600_000);
+    public void parseAndSaveFilms(PageArchive archive, Path destPath, RecordSink sink) throws IOException {
+        List<String> keys = archive.keysInArchiveOrder();
+
+        try (IncrementalParse incremental = IncrementalParse.open(destPath, "csfd_films_", batchSize, sink)) {
+            DuplicateDetector duplicates = DuplicateDetector.detect(archive, keys, CSFDParser::fingerprint, incremental,
+                    workers, "csfd");
+            duplicates.save(destPath.resolve("csfd_films_duplicates.tsv"));
+
+            try (ParallelParse parallel = new ParallelParse(workers, "csfd")) {
+                parallel.forEachOrdered(keys, v -> duplicates.isDuplicate(v) ? incremental.skip(v)
+                        : parseArchivedPage(archive, incremental, v), incremental::write);
+            }
+            incremental.commit(keys);
+        }
     }
 
     public void parseAndSaveFilms(Path srcPath, Path destPath, int limit) throws IOException {
-        ArrayNode films = om.createArrayNode();
+        try (RecordSink sink = new JsonFileSink(destPath, "csfd_films_", batchSize)) {
+            parseFilms(srcPath, limit, sink);
+        }
+    }
 
-        for (int i = 1; i < limit; i++) {
-            String docString = IOUtils.readFile(srcPath.resolve("csfd_page" + i + ".html"));
-            Document doc = Jsoup.parse(docString);
+    public void parseFilms(Path srcPath, int limit, RecordSink sink) throws IOException {
+        List<Path> pages = IntStream.range(1, limit)//
+                .mapToObj(i -> srcPath.resolve("csfd_page" + i + ".html"))//
+                .collect(Collectors.toList());
 
-            parseFilmIfValid(doc).ifPresent(v -> films.add(v));
+        try (ParallelParse parallel = new ParallelParse(workers, "csfd");
+                RecordBatcher batcher = new RecordBatcher(sink, batchSize)) {
+            parallel.forEachOrdered(pages, this::parseFile, batcher::add);
+        }
+    }
 
-            if (films.size() > 999) {
-                IOUtils.writeToFile(destPath.resolve("csfd_films_" + count + ".json"), films.toString());
-                films.removeAll();
-                count++;
+    private Optional<IncrementalParse.ParsedRecord> parseArchivedPage(PageArchive archive, IncrementalParse incremental,
+            String key) {
+        try {
+            Optional<byte[]> content = archive.get(key);
+            if (!content.isPresent()) {
+                return Optional.empty();
             }
+
+            return incremental.parseIfChanged(key, () -> parseFilmIfValid(getFilmId(key), parseDocument(content.get())),
+                    content.get());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static long fingerprint(byte[] html) {
+        return SimHash.fingerprint(html, MAIN_CONTENT_START, MAIN_CONTENT_END, HEADING);
+    }
+
+    private Document parseDocument(byte[] content) {
+        try {
+            return Jsoup.parse(new ByteArrayInputStream(content), StandardCharsets.UTF_8.name(), "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<JsonNode> parseFile(Path p) {
+        try {
+            return IOUtils.readBytesOptional(p).flatMap(v -> parseFilmIfValid(getFilmId(p), parseDocument(v)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
+
+    public Optional<JsonNode> parsePage(int id, String html) {
+        return parseFilmIfValid(id, Jsoup.parse(html));
+    }
+
+    public Optional<JsonNode> parsePage(int id, byte[] content) {
+        return parseFilmIfValid(id, parseDocument(content));
+    }
+
+    private Optional<JsonNode> parseFilmIfValid(int id, Document doc) {
+        Extraction film = FILM_FIELDS.extract(doc);
+
+        return isWantedFilm(film) ? Optional.of(parseFilm(id, film)) : Optional.empty();
+    }
 
-        IOUtils.writeToFile(Paths.get("src/main/resources/data/csfd/parsed/csfd_films_" + count + ".json"), films.toString());
+    private int getFilmId(String archiveKey) {
+        return Integer.parseInt(archiveKey.substring(archiveKey.lastIndexOf('/') + 1));
     }
 
-    private Optional<JsonNode> parseFilmIfValid(Document doc) {
-        return isWantedFilm(doc) ? Optional.of(parseFilm(doc)) : Optional.empty();
+    private int getFilmId(Path p) {
+        return Integer.parseInt(p.getFileName().toString().replaceAll("\\D", ""));
     }
 
-    private boolean isWantedFilm(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("span[class=film-type]"))
+    private boolean isWantedFilm(Extraction film) {
+        return film.first(FILM_TYPE)
                 .map(v -> !Arrays.asList("(epizoda)", "(série)").contains(v.ownText())).orElse(true);
     }
 
 
-    private JsonNode parseFilm(Document doc) {
+    JsonNode parseFilm(int id, Extraction film) {
         ObjectNode on = om.createObjectNode();
 
-        on.put("nazov", getFilmName(doc));
-        on.set("zanre", getFilmGenres(doc));
-        on.set("krajiny", getFilmCountries(doc));
-        on.put("rok", getFilmYear(doc));
-        on.put("trvanie", getFilmDuration(doc));
-        on.set("rezia", getFilmDirectors(doc));
-        on.set("scenar", getFilmScenarists(doc));
-        on.set("hraju", getFilmActors(doc));
-        on.put("obsah", getFilmContent(doc));
-        on.set("rating", getFilmRating(doc));
-        on.set("komentare", getFilmComments(doc));
+        on.put("id", id);
+        on.put("nazov", getFilmName(film));
+        on.set("zanre", getFilmGenres(film));
+        on.set("krajiny", getFilmCountries(film));
+        on.put("rok", getFilmYear(film));
+        on.put("trvanie", getFilmDuration(film));
+        on.set("rezia", getFilmDirectors(film));
+        on.set("scenar", getFilmScenarists(film));
+        on.set("hraju", getFilmActors(film));
+        on.put("obsah", getFilmContent(film));
+        on.set("rating", getFilmRating(film));
+        on.set("komentare", getFilmComments(film));
 
         return on;
     }
 
 
-    private String getFilmName(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("h1[itemprop=name]")).map(v -> v.ownText()).orElse("");
+    private String getFilmName(Extraction film) {
+        return film.first(NAME).map(v -> v.ownText()).orElse("");
     }
 
-    private JsonNode getFilmGenres(Document doc) {
+    private JsonNode getFilmGenres(Extraction film) {
         ArrayNode an = om.createArrayNode();
 
-        String[] genres =
-                Optional.ofNullable(doc.selectFirst("p[class=genre]")).map(v -> v.text().split("/")).orElse(new String[0]);
+        String[] genres = film.first(GENRE).map(v -> v.text().split("/")).orElse(new String[0]);
         for (String genre : genres) {
             an.add(genre.trim());
         }
@@ -96,11 +243,10 @@ public class CSFDParser implements Parser {
         return an;
     }
 
-    private JsonNode getFilmCountries(Document doc) {
+    private JsonNode getFilmCountries(Extraction film) {
         ArrayNode an = om.createArrayNode();
 
-        String[] countries = Optional.ofNullable(doc.selectFirst("p[class=origin]")).map(v -> v.text().split(",")[0].split("/"))
-                .orElse(new String[0]);
+        String[] countries = film.first(ORIGIN).map(v -> v.text().split(",")[0].split("/")).orElse(new String[0]);
         for (String country : countries) {
             an.add(country.trim());
         }
@@ -108,71 +254,53 @@ public class CSFDParser implements Parser {
         return an;
     }
 
-    private String getFilmYear(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("span[itemprop=dateCreated]")).map(v -> v.text()).orElse("");
+    private String getFilmYear(Extraction film) {
+        return film.first(YEAR).map(v -> v.text()).orElse("");
     }
 
-    private String getFilmDuration(Document doc) {
-        String[] tokens =
-                Optional.ofNullable(doc.selectFirst("p[class=origin]")).map(v -> v.text().split(",")).orElse(new String[0]);
+    private String getFilmDuration(Extraction film) {
+        String[] tokens = film.first(ORIGIN).map(v -> v.text().split(",")).orElse(new String[0]);
 
-        return tokens.length == 3 ? tokens[tokens.length - 1].replaceAll("\\D", "").trim() : "";
+        return tokens.length == 3 ? NON_DIGIT.matcher(tokens[tokens.length - 1]).replaceAll("").trim() : "";
     }
 
-    private JsonNode getFilmDirectors(Document doc) {
-        ArrayNode an = om.createArrayNode();
-
-        Optional<Element> preceedingTitle = Optional.ofNullable(doc.selectFirst("h4:contains(Režie:)"));
-        preceedingTitle.ifPresent(v -> {
-            List<Element> directors = v.nextElementSibling().select("a");
-            for (Element director : directors) {
-                an.add(director.ownText());
-            }
-        });
-
-        return an;
+    private JsonNode getFilmDirectors(Extraction film) {
+        return getCreatorNames(film.first(DIRECTORS));
     }
 
-    private JsonNode getFilmScenarists(Document doc) {
-        ArrayNode an = om.createArrayNode();
-
-        Optional<Element> preceedingTitle = Optional.ofNullable(doc.selectFirst("h4:contains(Scénář:)"));
-        preceedingTitle.ifPresent(v -> {
-            List<Element> scenarists = v.nextElementSibling().select("a");
-            for (Element scenarist : scenarists) {
-                an.add(scenarist.ownText());
-            }
-        });
+    private JsonNode getFilmScenarists(Extraction film) {
+        return getCreatorNames(film.first(SCENARISTS));
+    }
 
-        return an;
+    private JsonNode getFilmActors(Extraction film) {
+        return getCreatorNames(film.first(ACTORS));
     }
 
-    private JsonNode getFilmActors(Document doc) {
+    private JsonNode getCreatorNames(Optional<Element> preceedingTitle) {
         ArrayNode an = om.createArrayNode();
 
-        Optional<Element> preceedingTitle = Optional.ofNullable(doc.selectFirst("h4:contains(Hrají:)"));
         preceedingTitle.ifPresent(v -> {
-            List<Element> actors = v.nextElementSibling().select("a");
-            for (Element actor : actors) {
-                an.add(actor.ownText());
+            List<Element> creators = Collector.collect(A, v.nextElementSibling());
+            for (Element creator : creators) {
+                an.add(creator.ownText());
             }
         });
 
         return an;
     }
 
-    private String getFilmContent(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("div[data-truncate=570]")).map(v -> v.text()).orElse("");
+    private String getFilmContent(Extraction film) {
+        return film.first(CONTENT).map(v -> v.text()).orElse("");
     }
 
-    private ObjectNode getFilmRating(Document doc) {
+    private ObjectNode getFilmRating(Extraction film) {
         ObjectNode on = om.createObjectNode();
 
-        Element rating = doc.selectFirst("div[id=rating]");
-        if (rating != null) {
-            Optional.ofNullable(rating.selectFirst("h2[class=average]")).ifPresent(v -> on.put("average", v.ownText()));
+        Optional<Element> rating = film.first(RATING);
+        if (rating.isPresent()) {
+            Optional.ofNullable(Collector.findFirst(AVERAGE, rating.get())).ifPresent(v -> on.put("average", v.ownText()));
 
-            List<Element> meta = rating.select("meta");
+            List<Element> meta = Collector.collect(META, rating.get());
             for (Element m : meta) {
                 on.put(m.attr("itemprop"), m.attr("content"));
             }
@@ -181,17 +309,17 @@ public class CSFDParser implements Parser {
         return on;
     }
 
-    private JsonNode getFilmComments(Document doc) {
+    JsonNode getFilmComments(Extraction film) {
         ArrayNode an = om.createArrayNode();
 
-        Optional<Element> commentsDiv = Optional.ofNullable(doc.selectFirst("div[class=content comments]"));
+        Optional<Element> commentsDiv = film.first(COMMENTS);
         if (commentsDiv.isPresent()) {
-            List<Element> comments = commentsDiv.get().select("li");
+            List<Element> comments = Collector.collect(LI, commentsDiv.get());
             for (Element comment : comments) {
                 ObjectNode on = om.createObjectNode();
-                on.put("autor", comment.selectFirst("h5[class=author]").selectFirst("a").ownText());
-                on.put("datum", comment.selectFirst("span[class=date desc]").text().replaceAll("\\(|\\)", ""));
-                on.put("obsah", comment.selectFirst("p[class=post]").text().replaceAll("\\(\\d+\\.\\d+\\.\\d+\\)$", ""));
+                on.put("autor", Collector.findFirst(A, Collector.findFirst(AUTHOR, comment)).ownText());
+                on.put("datum", PARENTHESES.matcher(Collector.findFirst(DATE, comment).text()).replaceAll(""));
+                on.put("obsah", DATE_SUFFIX.matcher(Collector.findFirst(POST, comment).text()).replaceAll(""));
 
                 an.add(on);
             }
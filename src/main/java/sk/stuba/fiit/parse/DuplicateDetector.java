@@ -0,0 +1,126 @@
+package sk.stuba.fiit.parse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.ToLongFunction;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.store.PageArchive;
+import sk.stuba.fiit.util.SimHash;
+import sk.stuba.fiit.util.SimHashIndex;
+
+public class DuplicateDetector {
+
+    public static final int DEFAULT_MAX_DISTANCE = 3;
+
+    private static final String FINGERPRINT_VERSION = "values";
+
+    private final SimHashIndex index;
+    private final List<String> canonicalKeys = new ArrayList<>();
+    private final Map<String, Duplicate> duplicates = new LinkedHashMap<>();
+
+    private static class Duplicate {
+
+        private final String canonicalKey;
+        private final int distance;
+
+        private Duplicate(String canonicalKey, int distance) {
+            this.canonicalKey = canonicalKey;
+            this.distance = distance;
+        }
+    }
+
+    public DuplicateDetector(int maxDistance, int expectedSize) {
+        this.index = new SimHashIndex(maxDistance, expectedSize);
+    }
+
+    public static DuplicateDetector detect(PageArchive archive, List<String> keys, ToLongFunction<byte[]> fingerprint,
+            IncrementalParse incremental, int workers, String name) throws IOException {
+        DuplicateDetector detector = new DuplicateDetector(DEFAULT_MAX_DISTANCE, keys.size());
+        Counter reused = Metrics.counter("dedup." + name + ".reused");
+
+        try (ParallelParse parallel = new ParallelParse(workers, "fingerprint." + name)) {
+            parallel.forEachOrdered(keys, v -> getFingerprint(archive, v, fingerprint, incremental, reused),
+                    v -> detector.add(v.getKey(), v.getValue()));
+        }
+
+        Metrics.counter("dedup." + name + ".duplicates").add(detector.getDuplicateCount());
+
+        return detector;
+    }
+
+    private static Optional<Map.Entry<String, Long>> getFingerprint(PageArchive archive, String key,
+            ToLongFunction<byte[]> fingerprint, IncrementalParse incremental, Counter reused) {
+        Optional<String> version = archive.getVersion(key).map(v -> FINGERPRINT_VERSION + ":" + v);
+        if (!version.isPresent()) {
+            return Optional.empty();
+        }
+
+        OptionalLong cached = incremental.getFingerprint(key, version.get());
+        if (cached.isPresent()) {
+            reused.inc();
+            return Optional.of(new AbstractMap.SimpleImmutableEntry<>(key, cached.getAsLong()));
+        }
+
+        try {
+            Optional<byte[]> content = archive.get(key);
+            if (!content.isPresent()) {
+                return Optional.empty();
+            }
+
+            long computed = fingerprint.applyAsLong(content.get());
+            incremental.putFingerprint(key, version.get(), computed);
+
+            return Optional.of(new AbstractMap.SimpleImmutableEntry<>(key, computed));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized boolean add(String key, long fingerprint) {
+        int nearest = index.findNearest(fingerprint);
+        if (nearest >= 0) {
+            duplicates.put(key,
+                    new Duplicate(canonicalKeys.get(nearest), SimHash.distance(fingerprint, index.getFingerprint(nearest))));
+            return false;
+        }
+
+        index.add(fingerprint);
+        canonicalKeys.add(key);
+        return true;
+    }
+
+    public synchronized boolean isDuplicate(String key) {
+        return duplicates.containsKey(key);
+    }
+
+    public synchronized Optional<String> getCanonicalKey(String key) {
+        return Optional.ofNullable(duplicates.get(key)).map(v -> v.canonicalKey);
+    }
+
+    public synchronized int getDuplicateCount() {
+        return duplicates.size();
+    }
+
+    public synchronized void save(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Duplicate> e : duplicates.entrySet()) {
+                writer.append(e.getKey()).append('\t')//
+                        .append(e.getValue().canonicalKey).append('\t')//
+                        .append(String.valueOf(e.getValue().distance)).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package sk.stuba.fiit.parse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.jsoup.nodes.Element;
+
+public class Extraction {
+
+    private final Map<String, Integer> fieldIndexes;
+    private final Element[] firsts;
+    private final List<List<Element>> alls;
+
+    Extraction(Map<String, Integer> fieldIndexes, Element[] firsts, List<List<Element>> alls) {
+        this.fieldIndexes = fieldIndexes;
+        this.firsts = firsts;
+        this.alls = alls;
+    }
+
+    public Optional<Element> first(String name) {
+        return Optional.ofNullable(firsts[indexOf(name)]);
+    }
+
+    public List<Element> all(String name) {
+        List<Element> elements = alls.get(indexOf(name));
+        return elements != null ? Collections.unmodifiableList(elements) : Collections.emptyList();
+    }
+
+    private int indexOf(String name) {
+        Integer index = fieldIndexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown field " + name + ".");
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,111 @@
+package sk.stuba.fiit.parse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.QueryParser;
+
+public class FieldExtractor {
+
+    private final Map<String, Integer> fieldIndexes;
+    private final Evaluator[] evaluators;
+    private final boolean[] collectAll;
+    private final int firstOnlyCount;
+
+    private FieldExtractor(List<String> names, List<Evaluator> evaluators, List<Boolean> collectAll) {
+        this.fieldIndexes = new HashMap<>();
+        this.evaluators = evaluators.toArray(new Evaluator[0]);
+        this.collectAll = new boolean[names.size()];
+
+        int firstOnly = 0;
+        for (int i = 0; i < names.size(); i++) {
+            fieldIndexes.put(names.get(i), i);
+            this.collectAll[i] = collectAll.get(i);
+            firstOnly += collectAll.get(i) ? 0 : 1;
+        }
+        this.firstOnlyCount = firstOnly;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Extraction extract(Element root) {
+        Element[] firsts = new Element[evaluators.length];
+        List<List<Element>> alls = new ArrayList<>(evaluators.length);
+        for (int i = 0; i < evaluators.length; i++) {
+            alls.add(collectAll[i] ? new ArrayList<>() : null);
+        }
+
+        NodeTraversor.filter(new NodeFilter() {
+            private int firstsMissing = firstOnlyCount;
+
+            @Override
+            public FilterResult head(Node node, int depth) {
+                if (!(node instanceof Element)) {
+                    return FilterResult.CONTINUE;
+                }
+
+                Element element = (Element) node;
+                for (int i = 0; i < evaluators.length; i++) {
+                    if (collectAll[i]) {
+                        if (evaluators[i].matches(root, element)) {
+                            alls.get(i).add(element);
+                        }
+                    } else if (firsts[i] == null && evaluators[i].matches(root, element)) {
+                        firsts[i] = element;
+                        firstsMissing--;
+                    }
+                }
+
+                return firstsMissing == 0 && firstOnlyCount == evaluators.length ? FilterResult.STOP
+                        : FilterResult.CONTINUE;
+            }
+
+            @Override
+            public FilterResult tail(Node node, int depth) {
+                return FilterResult.CONTINUE;
+            }
+        }, root);
+
+        return new Extraction(fieldIndexes, firsts, alls);
+    }
+
+    public static class Builder {
+
+        private final List<String> names = new ArrayList<>();
+        private final List<Evaluator> evaluators = new ArrayList<>();
+        private final List<Boolean> collectAll = new ArrayList<>();
+
+        public Builder first(String name, String cssQuery) {
+            return add(name, cssQuery, false);
+        }
+
+        public Builder all(String name, String cssQuery) {
+            return add(name, cssQuery, true);
+        }
+
+        private Builder add(String name, String cssQuery, boolean all) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Field " + name + " is already defined.");
+            }
+
+            names.add(name);
+            evaluators.add(QueryParser.parse(cssQuery));
+            collectAll.add(all);
+
+            return this;
+        }
+
+        public FieldExtractor build() {
+            return new FieldExtractor(names, evaluators, collectAll);
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package sk.stuba.fiit.parse;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -21,73 +29,199 @@ import com.fasterxml.jackson.databind.node.LongNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 
+import sk.stuba.fiit.crawl.IMDBCrawler;
+import sk.stuba.fiit.sink.JsonFileSink;
+import sk.stuba.fiit.sink.RecordBatcher;
+import sk.stuba.fiit.sink.RecordSink;
+import sk.stuba.fiit.store.PageArchive;
 import sk.stuba.fiit.util.IOUtils;
+import sk.stuba.fiit.util.SimHash;
 
 public class IMDBParser implements Parser {
     
     private static final ObjectMapper om = new ObjectMapper();
-    
+
+    private static final String SCRIPT = "script";
+    private static final String BUDGET = "budget";
+    private static final String COUNTRY = "country";
+    private static final String LANGUAGE = "language";
+    private static final String SUMMARY_TEXT = "summaryText";
+    private static final String STORYLINE = "storyline";
+    private static final String TRIVIA = "trivia";
+    private static final String GOOFS = "goofs";
+
+    private static final String CAST_LIST = "castList";
+    private static final String WRITERS = "writers";
+    private static final String DIRECTORS = "directors";
+    private static final String PRODUCERS = "producers";
+    private static final String CAMERA = "camera";
+
+    private static final FieldExtractor TITLE_FIELDS = FieldExtractor.builder()//
+            .first(SCRIPT, "script[type=application/ld+json]")//
+            .first(BUDGET, "h4:contains(Budget:)")//
+            .first(COUNTRY, "h4:contains(Country:)")//
+            .first(LANGUAGE, "h4:contains(Language:)")//
+            .first(SUMMARY_TEXT, "div[class=summary_text]")//
+            .first(STORYLINE, "div[id=titleStoryLine]")//
+            .first(TRIVIA, "div[id=trivia]")//
+            .first(GOOFS, "div[id=goofs]")//
+            .build();
+
+    private static final FieldExtractor CAST_FIELDS = FieldExtractor.builder()//
+            .first(CAST_LIST, "table[class=cast_list]")//
+            .all(WRITERS, "h4:contains(Writing Credits)")//
+            .all(DIRECTORS, "h4:contains(Directed by), h4:contains(Second Unit Director or Assistant Director)")//
+            .all(PRODUCERS, "h4:contains(Produced by)")//
+            .all(CAMERA, "h4:contains(Camera and Electrical Department)")//
+            .build();
+
+    private static final List<String> FINGERPRINT_FIELDS = Arrays.asList("name", "genre", "actor", "director",
+            "creator", "description", "datePublished", "keywords", "duration");
+
+    private static final Evaluator A = QueryParser.parse("a");
+    private static final Evaluator P = QueryParser.parse("p");
+    private static final Evaluator SPAN = QueryParser.parse("span");
+    private static final Evaluator TR = QueryParser.parse("tr");
+    private static final Evaluator TD = QueryParser.parse("td");
+    private static final Evaluator TD_NAME = QueryParser.parse("td[class=name]");
+    private static final Evaluator TD_CHARACTER = QueryParser.parse("td[class=character]");
+    private static final Evaluator TD_CREDIT = QueryParser.parse("td[class=credit]");
+    private static final Evaluator INLINE_CANWRAP = QueryParser.parse("div[class=inline canwrap]");
+    private static final Evaluator SUMMARIES = QueryParser.parse("h4[id=summaries]");
+
+    private static final Path DEST_PATH = Paths.get("src/main/resources/data/imdb/parsed");
+
+    private final Path archiveDir;
+    private final Path destPath;
+    private final int workers;
+    private final int batchSize;
+
+    public IMDBParser() {
+        this(Runtime.getRuntime().availableProcessors(), 1_000);
+    }
+
+    public IMDBParser(int workers, int batchSize) {
+        this(IMDBCrawler.ARCHIVE_DIR, DEST_PATH, workers, batchSize);
+    }
+
+    public IMDBParser(Path archiveDir, Path destPath, int workers, int batchSize) {
+        this.archiveDir = archiveDir;
+        this.destPath = destPath;
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
+
     @Override
-    public void parseAll() throws IOException {
-        Path srcPath = Paths.get("/home/miroslav/Desktop/SKOLA/FIIT_STUBA/Ing/3.semester/VINF_I/imdb_pages");
-        Path destPath = Paths.get("src/main/resources/data/imdb/parsed");
-        
-        parseAndSaveTitles(srcPath, destPath, 1_000_000);
+    public void parseAll(RecordSink sink) throws IOException {
+        try (PageArchive archive = PageArchive.open(archiveDir)) {
+            parseAndSaveTitles(archive, destPath, 1_000_000, sink);
+        }
+    }
+
+    public void parseAndSaveTitles(PageArchive archive, Path destPath, int limit) throws IOException {
+        parseAndSaveTitles(archive, destPath, limit, RecordSink.discard());
+    }
+
+    public void parseAndSaveTitles(PageArchive archive, Path destPath, int limit, RecordSink sink) throws IOException {
+        List<String> keys = getTitleKeys(archive).stream().limit(limit).collect(Collectors.toList());
+
+        try (IncrementalParse incremental = IncrementalParse.open(destPath, "titles_", batchSize, sink)) {
+            DuplicateDetector duplicates = DuplicateDetector.detect(archive, keys, IMDBParser::fingerprint, incremental,
+                    workers, "imdb");
+            duplicates.save(destPath.resolve("titles_duplicates.tsv"));
+
+            try (ParallelParse parallel = new ParallelParse(workers, "imdb")) {
+                parallel.forEachOrdered(keys, v -> duplicates.isDuplicate(v) ? incremental.skip(v)
+                        : parseArchivedTitle(archive, incremental, v), incremental::write);
+            }
+            incremental.commit(getTitleKeys(archive));
+        }
     }
 
     public void parseAndSaveTitles(Path srcPath, Path destPath, int limit) throws IOException {
-        ArrayNode an = om.createArrayNode();
+        try (RecordSink sink = new JsonFileSink(destPath, "titles_", batchSize)) {
+            parseTitles(srcPath, limit, sink);
+        }
+    }
+
+    public void parseTitles(Path srcPath, int limit, RecordSink sink) throws IOException {
+        List<Path> titles;
+        try (Stream<Path> paths = Files.walk(srcPath, 1)) {
+            titles = paths//
+                    .filter(v -> !Files.isDirectory(v) && !v.getFileName().toString().matches(".*_summary.html|.*_cast.html"))//
+                    .sorted()//
+                    .limit(limit)//
+                    .collect(Collectors.toList());
+        }
+
+        try (ParallelParse parallel = new ParallelParse(workers, "imdb");
+                RecordBatcher batcher = new RecordBatcher(sink, batchSize)) {
+            parallel.forEachOrdered(titles, v -> Optional.of(parseTitle(v)), batcher::add);
+        }
+    }
 
-        Files.walk(srcPath, 1)//
-                .filter(v -> !Files.isDirectory(v) && !v.getFileName().toString().matches(".*_summary.html|.*_cast.html"))//
-                .limit(limit)//
-                .forEach(v -> {
-                    an.add(parseTitle(v));
+    private List<String> getTitleKeys(PageArchive archive) {
+        return archive.keysInArchiveOrder().stream()//
+                .filter(v -> !v.endsWith(IMDBCrawler.CAST_SUFFIX) && !v.endsWith(IMDBCrawler.SUMMARY_SUFFIX))//
+                .collect(Collectors.toList());
+    }
 
-                    if (an.size() >= 1_000) {
-                        long mill = System.currentTimeMillis();
-                        IOUtils.writeToFile(Paths.get(destPath.toString(), "titles_" + mill + ".json"), an.toString());
-                        an.removeAll();
-                    }
-                });
+    private Optional<IncrementalParse.ParsedRecord> parseArchivedTitle(PageArchive archive, IncrementalParse incremental,
+            String key) {
+        try {
+            byte[] title = archive.get(key).orElse(new byte[0]);
+            Optional<byte[]> cast = archive.get(key + IMDBCrawler.CAST_SUFFIX);
+            Optional<byte[]> summary = archive.get(key + IMDBCrawler.SUMMARY_SUFFIX);
 
-        IOUtils.writeToFile(Paths.get(destPath.toString(), "titles_" + System.currentTimeMillis() + ".json"), an.toString());
+            return incremental.parseIfChanged(key,
+                    () -> Optional.of(parseTitle(title, cast.map(this::parseDocument), summary.map(this::parseDocument))),
+                    title, cast.orElse(null), summary.orElse(null));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private JsonNode parseTitle(Path p) {
+        try {
+            return parseTitle(IOUtils.readBytes(p), getCastDoc(p), getSummaryDoc(p));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return om.createObjectNode();
+        }
+    }
+
+    public JsonNode parseTitle(byte[] titleHtml, Optional<Document> castDoc, Optional<Document> summaryDoc) {
+        Optional<ScannedTitlePage> scanned = TitlePageScanner.scan(titleHtml);
+        if (!scanned.isPresent()) {
+            return parseTitle(parseDocument(titleHtml), castDoc, summaryDoc);
+        }
+
+        ObjectNode on = om.createObjectNode();
+
+        try {
+            ScannedTitlePage page = scanned.get();
+            JsonNode scriptNode = om.readTree(om.getFactory().createParser(page.getHtml(), page.getJsonLdOffset(),
+                    page.getJsonLdLength()));
+            Extraction title = TITLE_FIELDS.extract(Jsoup.parse(page.getSections()));
+
+            parseTitle(on, scriptNode, title, castDoc, summaryDoc);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return on;
+    }
+
+    public JsonNode parseTitle(Document titleBaseDoc, Optional<Document> castDoc, Optional<Document> summaryDoc) {
         ObjectNode on = om.createObjectNode();
 
         try {
-            Document titleBaseDoc = Jsoup.parse(IOUtils.readFile(p));
-            Element script = titleBaseDoc.selectFirst("script[type=application/ld+json]");
+            Extraction title = TITLE_FIELDS.extract(titleBaseDoc);
+
+            Element script = title.first(SCRIPT).orElse(null);
             JsonNode scriptNode = om.readTree(script.dataNodes().get(0).toString());
 
-            on.set("name", getTitleName(scriptNode).orElse(null));
-            on.set("url", getTitleUrl(scriptNode).orElse(null));
-            on.set("contentRating", getTitleContentRating(scriptNode).orElse(null));
-            on.set("type", getTitleType(scriptNode).orElse(null));
-            on.set("publishDate", getTitlePublishDate(scriptNode).orElse(null));
-            on.set("duration", getTitleDuration(scriptNode).orElse(null));
-            on.set("budget", getTitleBudget(titleBaseDoc).orElse(null));
-            on.set("rating", getTitleRating(scriptNode).orElseGet(this::getEmptyRating));
-            on.set("genres", getTitleGenres(scriptNode).orElse(om.createArrayNode()));
-            on.set("countries", getTitleCountries(titleBaseDoc).orElse(om.createArrayNode()));
-            on.set("languages", getTitleLanguages(titleBaseDoc).orElse(null));
-            on.set("keywords", getTitleKeywords(scriptNode).orElse(null));
-            on.put("description", getTitleDescription(titleBaseDoc).orElse(null));
-            on.put("storyline", getTitleStoryLine(titleBaseDoc).orElse(null));
-            on.put("trivia", getTitleTrivia(titleBaseDoc).orElse(null));
-            on.put("goofs", getTitleGoofs(titleBaseDoc).orElse(null));
-
-            Optional<Document> castDoc = getCastDoc(p);
-            on.set("cast", getCast(castDoc).orElse(om.createArrayNode()));
-            on.set("writers", getWriters(castDoc).orElse(om.createArrayNode()));
-            on.set("directors", getDirectors(castDoc).orElse(om.createArrayNode()));
-            on.set("producers", getProducers(castDoc).orElse(om.createArrayNode()));
-            on.set("cameraAndElectricalDepartment", getCamera(castDoc).orElse(om.createArrayNode()));
-
-            Optional<Document> summaryDoc = getSummaryDoc(p);
-            getSummary(summaryDoc).ifPresent(v -> on.put("description", v));
+            parseTitle(on, scriptNode, title, castDoc, summaryDoc);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -95,6 +229,36 @@ public class IMDBParser implements Parser {
         return on;
     }
 
+    private void parseTitle(ObjectNode on, JsonNode scriptNode, Extraction title, Optional<Document> castDoc,
+            Optional<Document> summaryDoc) throws IOException {
+        Optional<Extraction> cast = castDoc.map(CAST_FIELDS::extract);
+
+        on.set("name", getTitleName(scriptNode).orElse(null));
+        on.set("url", getTitleUrl(scriptNode).orElse(null));
+        on.set("contentRating", getTitleContentRating(scriptNode).orElse(null));
+        on.set("type", getTitleType(scriptNode).orElse(null));
+        on.set("publishDate", getTitlePublishDate(scriptNode).orElse(null));
+        on.set("duration", getTitleDuration(scriptNode).orElse(null));
+        on.set("budget", getTitleBudget(title).orElse(null));
+        on.set("rating", getTitleRating(scriptNode).orElseGet(this::getEmptyRating));
+        on.set("genres", getTitleGenres(scriptNode).orElse(om.createArrayNode()));
+        on.set("countries", getTitleCountries(title).orElse(om.createArrayNode()));
+        on.set("languages", getTitleLanguages(title).orElse(null));
+        on.set("keywords", getTitleKeywords(scriptNode).orElse(null));
+        on.put("description", getTitleDescription(title).orElse(null));
+        on.put("storyline", getTitleStoryLine(title).orElse(null));
+        on.put("trivia", getTitleTrivia(title).orElse(null));
+        on.put("goofs", getTitleGoofs(title).orElse(null));
+
+        on.set("cast", getCast(cast).orElse(om.createArrayNode()));
+        on.set("writers", getWriters(cast).orElse(om.createArrayNode()));
+        on.set("directors", getDirectors(cast).orElse(om.createArrayNode()));
+        on.set("producers", getProducers(cast).orElse(om.createArrayNode()));
+        on.set("cameraAndElectricalDepartment", getCamera(cast).orElse(om.createArrayNode()));
+
+        getSummary(summaryDoc).ifPresent(v -> on.put("description", v));
+    }
+
     private Optional<JsonNode> getTitleName(JsonNode node) {
         return Optional.ofNullable(node.get("name"));
     }
@@ -124,8 +288,8 @@ public class IMDBParser implements Parser {
         return new LongNode(Duration.parse(durationNode.asText()).toMillis());
     }
 
-    private Optional<JsonNode> getTitleBudget(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("h4:contains(Budget:)")).map(v -> getTransformedBudget(v.parent()));
+    private Optional<JsonNode> getTitleBudget(Extraction title) {
+        return title.first(BUDGET).map(v -> getTransformedBudget(v.parent()));
     }
 
     private JsonNode getTransformedBudget(Element element) {
@@ -159,66 +323,68 @@ public class IMDBParser implements Parser {
         return om.createArrayNode().add(genresNode.asText());
     }
 
-    private Optional<JsonNode> getTitleCountries(Document doc) throws IOException {
-        return Optional.ofNullable(doc.selectFirst("h4:contains(Country:)"))//
+    private Optional<JsonNode> getTitleCountries(Extraction title) throws IOException {
+        return title.first(COUNTRY)//
                 .map(v -> getTransformedCountries(v.parent()));
     }
 
     private JsonNode getTransformedCountries(Element element) {
         return om.createArrayNode()
-                .addAll(element.select("a").stream().map(v -> new TextNode(v.text())).collect(Collectors.toList()));
+                .addAll(Collector.collect(A, element).stream().map(v -> new TextNode(v.text())).collect(Collectors.toList()));
     }
 
-    private Optional<JsonNode> getTitleLanguages(Document doc) throws IOException {
-        return Optional.ofNullable(doc.selectFirst("h4:contains(Language:)"))//
+    private Optional<JsonNode> getTitleLanguages(Extraction title) throws IOException {
+        return title.first(LANGUAGE)//
                 .map(v -> getTransformedLanguages(v.parent()));
     }
 
     private JsonNode getTransformedLanguages(Element element) {
         return om.createArrayNode()
-                .addAll(element.select("a").stream().map(v -> new TextNode(v.text())).collect(Collectors.toList()));
+                .addAll(Collector.collect(A, element).stream().map(v -> new TextNode(v.text())).collect(Collectors.toList()));
     }
 
     private Optional<JsonNode> getTitleKeywords(JsonNode node) {
         return Optional.ofNullable(node.get("keywords"));
     }
 
-    private Optional<String> getTitleDescription(Document doc) throws IOException {
-        return Optional.ofNullable(doc.selectFirst("div[class=summary_text]")).map(v -> v.text());
+    private Optional<String> getTitleDescription(Extraction title) throws IOException {
+        return title.first(SUMMARY_TEXT).map(v -> v.text());
     }
 
 
-    private Optional<String> getTitleStoryLine(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("div[id=titleStoryLine]"))//
-                .map(v -> v.selectFirst("div[class=inline canwrap]"))//
-                .map(v -> v.selectFirst("span"))//
+    private Optional<String> getTitleStoryLine(Extraction title) {
+        return title.first(STORYLINE)//
+                .map(v -> Collector.findFirst(INLINE_CANWRAP, v))//
+                .map(v -> Collector.findFirst(SPAN, v))//
                 .map(v -> v.text());
     }
 
-    private Optional<String> getTitleTrivia(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("div[id=trivia]")).map(v -> v.ownText().replaceAll("»", "").trim());
+    private Optional<String> getTitleTrivia(Extraction title) {
+        return title.first(TRIVIA).map(v -> v.ownText().replace("»", "").trim());
     }
 
-    private Optional<String> getTitleGoofs(Document doc) {
-        return Optional.ofNullable(doc.selectFirst("div[id=goofs]")).map(v -> v.ownText().replaceAll("»", "").trim());
+    private Optional<String> getTitleGoofs(Extraction title) {
+        return title.first(GOOFS).map(v -> v.ownText().replace("»", "").trim());
     }
 
-    private Optional<JsonNode> getCast(Optional<Document> castDoc) throws IOException {
-        return castDoc.map(this::parseFullCast);
+    private Optional<JsonNode> getCast(Optional<Extraction> cast) throws IOException {
+        return cast.map(this::parseFullCast);
     }
 
-    private ArrayNode parseFullCast(Document doc) {
+    private ArrayNode parseFullCast(Extraction cast) {
         ArrayNode an = om.createArrayNode();
 
-        Optional<Element> table = Optional.ofNullable(doc.selectFirst("table[class=cast_list]"));
+        Optional<Element> table = cast.first(CAST_LIST);
         if (table.isPresent()) {
             List<Element> validCastRows = getValidCastRows(table.get());
             for (Element row : validCastRows) {
                 ObjectNode on = om.createObjectNode();
 
-                on.put("name", row.select("td").get(1).text());
-                on.put("url", row.select("td").get(1).selectFirst("a").attr("href"));
-                on.put("character", row.selectFirst("td[class=character]").text());
+                Element nameCell = Collector.collect(TD, row).get(1);
+
+                on.put("name", nameCell.text());
+                on.put("url", Collector.findFirst(A, nameCell).attr("href"));
+                on.put("character", Collector.findFirst(TD_CHARACTER, row).text());
 
                 an.add(on);
             }
@@ -227,43 +393,26 @@ public class IMDBParser implements Parser {
         return an;
     }
 
-    private Optional<JsonNode> getWriters(Optional<Document> castDoc) throws IOException {
-        return castDoc.map(this::parseWriters);
-    }
-
-    private ArrayNode parseWriters(Document doc) {
-        return parseOtherCast(doc, "Writing Credits");
-    }
-
-    private Optional<JsonNode> getDirectors(Optional<Document> castDoc) throws IOException {
-        return castDoc.map(this::parseDirectors);
-    }
-
-    private ArrayNode parseDirectors(Document doc) {
-        return parseOtherCast(doc, "Directed by", "Second Unit Director or Assistant Director");
-    }
-
-    private Optional<JsonNode> getProducers(Optional<Document> castDoc) throws IOException {
-        return castDoc.map(this::parseProducers);
+    private Optional<JsonNode> getWriters(Optional<Extraction> cast) throws IOException {
+        return cast.map(v -> parseOtherCast(v, WRITERS));
     }
 
-    private ArrayNode parseProducers(Document doc) {
-        return parseOtherCast(doc, "Produced by");
+    private Optional<JsonNode> getDirectors(Optional<Extraction> cast) throws IOException {
+        return cast.map(v -> parseOtherCast(v, DIRECTORS));
     }
 
-    private Optional<JsonNode> getCamera(Optional<Document> castDoc) throws IOException {
-        return castDoc.map(this::parseCamera);
+    private Optional<JsonNode> getProducers(Optional<Extraction> cast) throws IOException {
+        return cast.map(v -> parseOtherCast(v, PRODUCERS));
     }
 
-    private ArrayNode parseCamera(Document doc) {
-        return parseOtherCast(doc, "Camera and Electrical Department");
+    private Optional<JsonNode> getCamera(Optional<Extraction> cast) throws IOException {
+        return cast.map(v -> parseOtherCast(v, CAMERA));
     }
 
-    private ArrayNode parseOtherCast(Document doc, String... headings) {
+    private ArrayNode parseOtherCast(Extraction cast, String headingsField) {
         ArrayNode an = om.createArrayNode();
 
-        String selector = Arrays.asList(headings).stream().map(v -> "h4:contains(" + v + ")").collect(Collectors.joining(", "));
-        List<Element> headingElements = doc.select(selector);
+        List<Element> headingElements = cast.all(headingsField);
         List<Element> tables = headingElements.stream().map(Element::nextElementSibling).collect(Collectors.toList());
 
         for (Element table : tables) {
@@ -271,9 +420,11 @@ public class IMDBParser implements Parser {
             for (Element row : validRows) {
                 ObjectNode on = om.createObjectNode();
 
-                on.put("name", row.selectFirst("td").text());
-                on.put("url", row.selectFirst("td").selectFirst("a").attr("href"));
-                on.put("credit", Optional.ofNullable(row.selectFirst("td[class=credit]")).map(Element::text).orElse(null));
+                Element nameCell = Collector.findFirst(TD, row);
+
+                on.put("name", nameCell.text());
+                on.put("url", Collector.findFirst(A, nameCell).attr("href"));
+                on.put("credit", Optional.ofNullable(Collector.findFirst(TD_CREDIT, row)).map(Element::text).orElse(null));
 
                 an.add(on);
             }
@@ -283,30 +434,69 @@ public class IMDBParser implements Parser {
     }
 
     private Optional<Document> getCastDoc(Path p) throws IOException {
-        return IOUtils.readFileOptional(p.resolveSibling(p.getFileName().toString().replaceAll(".html", "_cast.html")))
-                .map(v -> Jsoup.parse(v));
+        return IOUtils.readBytesOptional(p.resolveSibling(p.getFileName().toString().replaceAll(".html", "_cast.html")))
+                .map(this::parseDocument);
+    }
+
+    static long fingerprint(byte[] titleHtml) {
+        int[] jsonLd = TitlePageScanner.findJsonLd(titleHtml);
+        if (jsonLd == null) {
+            return SimHash.fingerprint(titleHtml);
+        }
+
+        try {
+            JsonNode scriptNode = om.readTree(om.getFactory().createParser(titleHtml, jsonLd[0], jsonLd[1] - jsonLd[0]));
+
+            List<String> values = new ArrayList<>();
+            for (String field : FINGERPRINT_FIELDS) {
+                addFingerprintValues(scriptNode.path(field), values);
+            }
+            return SimHash.fingerprint(values);
+        } catch (IOException e) {
+            return SimHash.fingerprint(titleHtml);
+        }
+    }
+
+    private static void addFingerprintValues(JsonNode node, List<String> values) {
+        if (node.isArray()) {
+            node.forEach(v -> addFingerprintValues(v, values));
+        } else if (node.isObject()) {
+            addFingerprintValues(node.path("name"), values);
+        } else if (node.isValueNode()) {
+            values.add(node.asText());
+        }
+    }
+
+    private Document parseDocument(byte[] content) {
+        try {
+            return Jsoup.parse(new ByteArrayInputStream(content), StandardCharsets.UTF_8.name(), "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     private Optional<Document> getSummaryDoc(Path p) throws IOException {
-        return IOUtils.readFileOptional(p.resolveSibling(p.getFileName().toString().replaceAll(".html", "_summary.html")))
-                .map(v -> Jsoup.parse(v));
+        return IOUtils.readBytesOptional(p.resolveSibling(p.getFileName().toString().replaceAll(".html", "_summary.html")))
+                .map(this::parseDocument);
     }
 
     private Optional<String> getSummary(Optional<Document> summaryDoc) throws IOException {
         if (summaryDoc.isPresent()) {
-            return Optional.of(summaryDoc.get().selectFirst("h4[id=summaries]").nextElementSibling().selectFirst("p").text());
+            Element summaries = Collector.findFirst(SUMMARIES, summaryDoc.get());
+            return Optional.of(Collector.findFirst(P, summaries.nextElementSibling()).text());
         }
 
         return Optional.empty();
     }
 
     private List<Element> getValidCastRows(Element element) {
-        return element.select("tr").stream().filter(v -> v.selectFirst("td[class=character]") != null)
+        return Collector.collect(TR, element).stream().filter(v -> Collector.findFirst(TD_CHARACTER, v) != null)
                 .collect(Collectors.toList());
     }
 
     private List<Element> getValidOtherCastRows(Element element) {
-        return element.select("tr").stream().filter(v -> v.selectFirst("td[class=name]") != null).collect(Collectors.toList());
+        return Collector.collect(TR, element).stream().filter(v -> Collector.findFirst(TD_NAME, v) != null)
+                .collect(Collectors.toList());
     }
 
     private JsonNode getEmptyRating() {
@@ -0,0 +1,223 @@
+package sk.stuba.fiit.parse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import sk.stuba.fiit.link.ParsedRecords;
+import sk.stuba.fiit.sink.RecordBatcher;
+import sk.stuba.fiit.sink.RecordSink;
+import sk.stuba.fiit.util.BulkEncoder;
+
+public class IncrementalParse implements Closeable {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private final Path destPath;
+    private final String filePrefix;
+    private final boolean deltas;
+    private final boolean snapshot;
+    private final ParseManifest manifest;
+    private final JsonBatchWriter records;
+    private final JsonBatchWriter tombstones;
+    private final RecordBatcher downstream;
+    private final RecordBatcher replay;
+
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private int changed;
+    private int deleted;
+
+    static class ParsedRecord {
+
+        private final String key;
+        private final String hash;
+        private final Optional<JsonNode> record;
+
+        ParsedRecord(String key, String hash, Optional<JsonNode> record) {
+            this.key = key;
+            this.hash = hash;
+            this.record = record;
+        }
+    }
+
+    private IncrementalParse(Path destPath, String filePrefix, boolean deltas, boolean snapshot,
+            ParseManifest manifest, JsonBatchWriter records, JsonBatchWriter tombstones, RecordBatcher downstream,
+            RecordBatcher replay) {
+        this.destPath = destPath;
+        this.filePrefix = filePrefix;
+        this.deltas = deltas;
+        this.snapshot = snapshot;
+        this.manifest = manifest;
+        this.records = records;
+        this.tombstones = tombstones;
+        this.downstream = downstream;
+        this.replay = replay;
+    }
+
+    public static IncrementalParse open(Path destPath, String filePrefix, int batchSize) throws IOException {
+        return open(destPath, filePrefix, batchSize, RecordSink.discard());
+    }
+
+    public static IncrementalParse open(Path destPath, String filePrefix, int batchSize, RecordSink downstream)
+            throws IOException {
+        String tombstonePrefix = filePrefix + "tombstones_";
+
+        return new IncrementalParse(destPath, filePrefix, downstream.acceptsDeltas(), downstream.isSnapshot(),
+                ParseManifest.open(destPath.resolve(filePrefix + "manifest.tsv")),
+                new JsonBatchWriter(destPath, filePrefix, batchSize, getNextBatch(destPath, filePrefix)),
+                new JsonBatchWriter(destPath, tombstonePrefix, batchSize, getNextBatch(destPath, tombstonePrefix)),
+                new RecordBatcher(downstream, batchSize),
+                new RecordBatcher(RecordSink.snapshotOf(downstream), batchSize));
+    }
+
+    public Optional<ParsedRecord> parseIfChanged(String key, Supplier<Optional<JsonNode>> parse, byte[]... contents) {
+        String hash = hash(contents);
+
+        if (manifest.get(key).map(v -> v.getHash().equals(hash)).orElse(false)) {
+            unchanged.incrementAndGet();
+            return Optional.empty();
+        }
+
+        return Optional.of(new ParsedRecord(key, hash, parse.get()));
+    }
+
+    public Optional<ParsedRecord> skip(String key) {
+        return Optional.of(new ParsedRecord(key, "", Optional.empty()));
+    }
+
+    public OptionalLong getFingerprint(String key, String pageVersion) {
+        Optional<ParseManifest.Entry> entry = manifest.get(key);
+
+        return entry.isPresent() && entry.get().hasFingerprint(pageVersion)
+                ? OptionalLong.of(entry.get().getFingerprint()) : OptionalLong.empty();
+    }
+
+    public void putFingerprint(String key, String pageVersion, long fingerprint) {
+        manifest.put(key, manifest.get(key).orElse(new ParseManifest.Entry("", "", ""))
+                .withFingerprint(pageVersion, fingerprint));
+    }
+
+    public void write(ParsedRecord parsed) {
+        try {
+            Optional<ParseManifest.Entry> previous = manifest.get(parsed.key);
+            Optional<String> documentId = Optional.empty();
+
+            if (parsed.record.isPresent()) {
+                documentId = Optional.of(BulkEncoder.getDocumentId(parsed.record.get()));
+                records.write(parsed.record.get());
+                if (deltas) {
+                    downstream.add(parsed.record.get());
+                }
+                changed++;
+            }
+
+            if (previous.isPresent() && previous.get().hasOutput()
+                    && !documentId.equals(Optional.of(previous.get().getDocumentId()))) {
+                writeTombstone(previous.get().getDocumentId());
+            }
+
+            ParseManifest.Entry entry = new ParseManifest.Entry(parsed.hash, documentId.orElse(""),
+                    documentId.isPresent() ? records.getCurrentFile() : "");
+            manifest.put(parsed.key,
+                    previous.map(v -> entry.withFingerprint(v.getPageVersion(), v.getFingerprint())).orElse(entry));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void commit(Collection<String> sourceKeys) {
+        Set<String> present = new HashSet<>(sourceKeys);
+
+        for (String key : manifest.keys()) {
+            if (!present.contains(key)) {
+                manifest.remove(key).filter(ParseManifest.Entry::hasOutput)
+                        .ifPresent(v -> writeTombstone(v.getDocumentId()));
+            }
+        }
+    }
+
+    private void writeTombstone(String documentId) {
+        ObjectNode on = om.createObjectNode();
+
+        on.put("id", documentId);
+        on.put("deleted", true);
+
+        tombstones.write(on);
+        if (deltas) {
+            downstream.add(on);
+        }
+        deleted++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            records.close();
+            tombstones.close();
+        } finally {
+            manifest.save();
+        }
+
+        downstream.close();
+        if (snapshot) {
+            ParsedRecords.forEachLive(destPath, filePrefix, replay::add);
+            ParsedRecords.forEachDeleted(destPath, filePrefix, replay::add);
+            replay.close();
+        }
+
+        System.out.println("Parsed " + changed + " changed records, skipped " + unchanged.get()
+                + " unchanged pages, wrote " + deleted + " tombstones.");
+    }
+
+    private static String hash(byte[]... contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (byte[] content : contents) {
+                int length = content != null ? content.length : -1;
+                digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+                        (byte) length });
+
+                if (content != null) {
+                    digest.update(content);
+                }
+            }
+
+            return String.format("%040x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int getNextBatch(Path destPath, String filePrefix) throws IOException {
+        if (!Files.isDirectory(destPath)) {
+            return 1;
+        }
+
+        Pattern batchFile = Pattern.compile(Pattern.quote(filePrefix) + "(\\d+)\\.json");
+        try (Stream<Path> files = Files.list(destPath)) {
+            return files.map(v -> batchFile.matcher(v.getFileName().toString()))//
+                    .filter(Matcher::matches)//
+                    .mapToInt(v -> Integer.parseInt(v.group(1)))//
+                    .max().orElse(0) + 1;
+        }
+    }
+}
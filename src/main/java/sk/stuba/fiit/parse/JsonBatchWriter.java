@@ -0,0 +1,99 @@
+package sk.stuba.fiit.parse;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class JsonBatchWriter implements Closeable {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Counter RECORDS_WRITTEN = Metrics.counter("io.records.written");
+    private static final Counter BATCHES_WRITTEN = Metrics.counter("io.batches.written");
+
+    private final Path destPath;
+    private final String filePrefix;
+    private final int batchSize;
+
+    private JsonGenerator generator;
+    private int recordsInBatch;
+    private int count;
+    private String currentFile;
+
+    public JsonBatchWriter(Path destPath, String filePrefix, int batchSize) {
+        this(destPath, filePrefix, batchSize, 1);
+    }
+
+    public JsonBatchWriter(Path destPath, String filePrefix, int batchSize, int firstBatch) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize + ".");
+        }
+
+        this.destPath = destPath;
+        this.filePrefix = filePrefix;
+        this.batchSize = batchSize;
+        this.count = firstBatch;
+    }
+
+    public synchronized void write(JsonNode record) {
+        try {
+            if (generator == null) {
+                openBatch();
+            }
+
+            generator.writeTree(record);
+            recordsInBatch++;
+            RECORDS_WRITTEN.inc();
+
+            if (recordsInBatch >= batchSize) {
+                closeBatch();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized String getCurrentFile() {
+        return currentFile;
+    }
+
+    private void openBatch() throws IOException {
+        Path p = destPath.resolve(filePrefix + count + ".json");
+        currentFile = p.getFileName().toString();
+
+        BATCHES_WRITTEN.inc();
+
+        generator = om.getFactory()
+                .createGenerator(new BufferedOutputStream(Files.newOutputStream(p), BUFFER_SIZE), JsonEncoding.UTF8);
+        generator.writeStartArray();
+    }
+
+    private void closeBatch() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+
+        generator = null;
+        recordsInBatch = 0;
+        count++;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (generator != null) {
+            closeBatch();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package sk.stuba.fiit.parse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Histogram;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class ParallelParse implements Closeable {
+
+    private static final int WINDOW_PER_WORKER = 64;
+
+    private final ForkJoinPool pool;
+    private final int windowSize;
+
+    private final Counter pages;
+    private final Histogram parseTime;
+
+    public ParallelParse(int workers) {
+        this(workers, "parse");
+    }
+
+    public ParallelParse(int workers, String name) {
+        this.pool = new ForkJoinPool(workers);
+        this.windowSize = workers * WINDOW_PER_WORKER;
+        this.pages = Metrics.counter("parse." + name + ".pages");
+        this.parseTime = Metrics.histogram("parse." + name + ".time");
+    }
+
+    public <T, R> void forEachOrdered(List<T> inputs, Function<T, Optional<R>> parse, Consumer<R> out)
+            throws IOException {
+        for (int from = 0; from < inputs.size(); from += windowSize) {
+            List<T> window = inputs.subList(from, Math.min(from + windowSize, inputs.size()));
+
+            for (Optional<R> record : parseWindow(window, parse)) {
+                record.ifPresent(out);
+            }
+        }
+    }
+
+    private <T, R> List<Optional<R>> parseWindow(List<T> window, Function<T, Optional<R>> parse)
+            throws IOException {
+        try {
+            return pool.submit(() -> window.parallelStream().map(v -> timed(parse, v)).collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+
+            throw new IOException("Parsing failed.", e.getCause());
+        }
+    }
+
+    private <T, R> Optional<R> timed(Function<T, Optional<R>> parse, T input) {
+        long start = System.nanoTime();
+        try {
+            return parse.apply(input);
+        } finally {
+            parseTime.recordSince(start);
+            pages.inc();
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,143 @@
+package sk.stuba.fiit.parse;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ParseManifest {
+
+    private final Path file;
+    private final ConcurrentMap<String, Entry> entries;
+
+    public static class Entry {
+
+        private final String hash;
+        private final String documentId;
+        private final String outputFile;
+        private final String pageVersion;
+        private final long fingerprint;
+
+        public Entry(String hash, String documentId, String outputFile) {
+            this(hash, documentId, outputFile, "", 0);
+        }
+
+        public Entry(String hash, String documentId, String outputFile, String pageVersion, long fingerprint) {
+            this.hash = hash;
+            this.documentId = documentId;
+            this.outputFile = outputFile;
+            this.pageVersion = pageVersion;
+            this.fingerprint = fingerprint;
+        }
+
+        public Entry withFingerprint(String pageVersion, long fingerprint) {
+            return new Entry(hash, documentId, outputFile, pageVersion, fingerprint);
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public String getDocumentId() {
+            return documentId;
+        }
+
+        public String getOutputFile() {
+            return outputFile;
+        }
+
+        public String getPageVersion() {
+            return pageVersion;
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public boolean hasOutput() {
+            return !documentId.isEmpty();
+        }
+
+        public boolean hasFingerprint(String pageVersion) {
+            return !this.pageVersion.isEmpty() && this.pageVersion.equals(pageVersion);
+        }
+    }
+
+    private ParseManifest(Path file, ConcurrentMap<String, Entry> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    public static ParseManifest open(Path file) throws IOException {
+        ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split("\t", -1);
+                    if (parts.length == 4) {
+                        entries.put(parts[0], new Entry(parts[1], parts[2], parts[3]));
+                    } else if (parts.length == 6) {
+                        entries.put(parts[0], new Entry(parts[1], parts[2], parts[3], parts[4],
+                                parts[5].isEmpty() ? 0 : Long.parseUnsignedLong(parts[5], 16)));
+                    } else {
+                        throw new IOException("Malformed manifest line in " + file + ": " + line);
+                    }
+                }
+            }
+        }
+
+        return new ParseManifest(file, entries);
+    }
+
+    public Optional<Entry> get(String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    public void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    public Optional<Entry> remove(String key) {
+        return Optional.ofNullable(entries.remove(key));
+    }
+
+    public List<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void save() throws IOException {
+        List<String> keys = keys();
+        Collections.sort(keys);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (String key : keys) {
+                Entry entry = entries.get(key);
+                writer.append(key).append('\t')//
+                        .append(entry.getHash()).append('\t')//
+                        .append(entry.getDocumentId()).append('\t')//
+                        .append(entry.getOutputFile()).append('\t')//
+                        .append(entry.getPageVersion()).append('\t')//
+                        .append(entry.getPageVersion().isEmpty() ? "" : Long.toHexString(entry.getFingerprint()))
+                        .append('\n');
+            }
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
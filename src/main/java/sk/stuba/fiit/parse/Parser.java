@@ -2,7 +2,13 @@ package sk.stuba.fiit.parse;
 
 import java.io.IOException;
 
+import sk.stuba.fiit.sink.RecordSink;
+
 public interface Parser {
 
-    void parseAll() throws IOException;
+    default void parseAll() throws IOException {
+        parseAll(RecordSink.discard());
+    }
+
+    void parseAll(RecordSink sink) throws IOException;
 }
@@ -0,0 +1,32 @@
+package sk.stuba.fiit.parse;
+
+public class ScannedTitlePage {
+
+    private final byte[] html;
+    private final int jsonLdOffset;
+    private final int jsonLdLength;
+    private final String sections;
+
+    ScannedTitlePage(byte[] html, int jsonLdOffset, int jsonLdLength, String sections) {
+        this.html = html;
+        this.jsonLdOffset = jsonLdOffset;
+        this.jsonLdLength = jsonLdLength;
+        this.sections = sections;
+    }
+
+    public byte[] getHtml() {
+        return html;
+    }
+
+    public int getJsonLdOffset() {
+        return jsonLdOffset;
+    }
+
+    public int getJsonLdLength() {
+        return jsonLdLength;
+    }
+
+    public String getSections() {
+        return sections;
+    }
+}
@@ -0,0 +1,273 @@
+package sk.stuba.fiit.parse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class TitlePageScanner {
+
+    private static final byte[] JSON_LD = ascii("application/ld+json");
+    private static final byte[] SCRIPT_OPEN = ascii("<script");
+    private static final byte[] SCRIPT_CLOSE = ascii("</script");
+    private static final byte[] COMMENT_OPEN = ascii("<!--");
+    private static final byte[] COMMENT_CLOSE = ascii("-->");
+    private static final byte[] DIV = ascii("div");
+
+    private static final List<Section> HEADINGS = Arrays.asList(//
+            new Section("Budget:</h4>", "budget:"), //
+            new Section("Country:</h4>", "country:"), //
+            new Section("Language:</h4>", "language:"));
+
+    private static final List<Section> ATTRIBUTES = Arrays.asList(//
+            new Section("class=\"summary_text\"", "summary_text"), //
+            new Section("id=\"titleStoryLine\"", "titlestoryline"), //
+            new Section("id=\"trivia\"", "\"trivia\""), //
+            new Section("id=\"goofs\"", "\"goofs\""));
+
+    private static final Counter FALLBACKS = Metrics.counter("parse.imdb.scan.fallback");
+
+    private static class Section {
+
+        private final byte[] marker;
+        private final byte[] hint;
+
+        Section(String marker, String hint) {
+            this.marker = ascii(marker);
+            this.hint = ascii(hint);
+        }
+    }
+
+    private TitlePageScanner() {
+    }
+
+    public static Optional<ScannedTitlePage> scan(byte[] html) {
+        int[] jsonLd = findJsonLd(html);
+        if (jsonLd == null) {
+            return Optional.empty();
+        }
+
+        StringBuilder sections = new StringBuilder("<html><body>");
+        for (Section heading : HEADINGS) {
+            int at = indexOf(html, heading.marker, 0);
+            if (at < 0) {
+                if (hasHint(html, heading)) {
+                    FALLBACKS.inc();
+                    return Optional.empty();
+                }
+                continue;
+            }
+
+            int[] range = getEnclosingDiv(html, at);
+            if (range == null) {
+                return Optional.empty();
+            }
+            sections.append(new String(html, range[0], range[1] - range[0], StandardCharsets.UTF_8));
+        }
+
+        for (Section attribute : ATTRIBUTES) {
+            int at = indexOfAttribute(html, attribute.marker);
+            if (at < 0) {
+                if (hasHint(html, attribute)) {
+                    FALLBACKS.inc();
+                    return Optional.empty();
+                }
+                continue;
+            }
+
+            int[] range = getElement(html, lastIndexOf(html, (byte) '<', at));
+            if (range == null) {
+                return Optional.empty();
+            }
+            sections.append(new String(html, range[0], range[1] - range[0], StandardCharsets.UTF_8));
+        }
+        sections.append("</body></html>");
+
+        return Optional.of(new ScannedTitlePage(html, jsonLd[0], jsonLd[1] - jsonLd[0], sections.toString()));
+    }
+
+    static int[] findJsonLd(byte[] html) {
+        int marker = indexOf(html, JSON_LD, 0);
+        int start = marker < 0 ? -1 : indexOf(html, (byte) '>', marker) + 1;
+        int end = start <= 0 ? -1 : indexOf(html, SCRIPT_CLOSE, start);
+
+        return end < 0 ? null : new int[] { start, end };
+    }
+
+    private static boolean hasHint(byte[] html, Section section) {
+        int last = html.length - section.hint.length;
+        for (int i = 0; i <= last; i++) {
+            int j = 0;
+            while (j < section.hint.length && toLowerCase(html[i + j]) == section.hint[j]) {
+                j++;
+            }
+            if (j == section.hint.length) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static int[] getEnclosingDiv(byte[] html, int at) {
+        int open = lastIndexOfTag(html, DIV, at);
+        while (open >= 0) {
+            int end = getElementEnd(html, open, DIV);
+            if (end < 0) {
+                return null;
+            }
+            if (end > at) {
+                return new int[] { open, end };
+            }
+            open = lastIndexOfTag(html, DIV, open - 1);
+        }
+
+        return null;
+    }
+
+    private static int[] getElement(byte[] html, int open) {
+        if (open < 0 || open + 1 >= html.length || !isLetter(html[open + 1])) {
+            return null;
+        }
+
+        int nameEnd = open + 1;
+        while (nameEnd < html.length && !isTagNameEnd(html[nameEnd])) {
+            nameEnd++;
+        }
+
+        int end = getElementEnd(html, open, Arrays.copyOfRange(html, open + 1, nameEnd));
+        return end < 0 ? null : new int[] { open, end };
+    }
+
+    private static int getElementEnd(byte[] html, int open, byte[] name) {
+        int depth = 0;
+        int pos = open;
+
+        while ((pos = indexOf(html, (byte) '<', pos)) >= 0) {
+            if (startsWith(html, pos, COMMENT_OPEN)) {
+                int close = indexOf(html, COMMENT_CLOSE, pos);
+                if (close < 0) {
+                    return -1;
+                }
+                pos = close + COMMENT_CLOSE.length;
+            } else if (startsWith(html, pos, SCRIPT_OPEN) && isTagNameEnd(html, pos + SCRIPT_OPEN.length)) {
+                int close = indexOf(html, SCRIPT_CLOSE, pos);
+                if (close < 0) {
+                    return -1;
+                }
+                pos = close + SCRIPT_CLOSE.length;
+            } else if (isTagAt(html, pos + 1, name)) {
+                depth++;
+                pos++;
+            } else if (pos + 1 < html.length && html[pos + 1] == '/' && isTagAt(html, pos + 2, name)) {
+                int end = indexOf(html, (byte) '>', pos);
+                if (end < 0) {
+                    return -1;
+                }
+                if (--depth == 0) {
+                    return end + 1;
+                }
+                pos = end;
+            } else {
+                pos++;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOfAttribute(byte[] html, byte[] attribute) {
+        int at = indexOf(html, attribute, 0);
+        while (at > 0 && !isWhitespace(html[at - 1])) {
+            at = indexOf(html, attribute, at + 1);
+        }
+
+        return at;
+    }
+
+    private static int lastIndexOfTag(byte[] html, byte[] name, int from) {
+        for (int i = Math.min(from, html.length - 1); i >= 0; i--) {
+            if (html[i] == '<' && isTagAt(html, i + 1, name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isTagAt(byte[] html, int pos, byte[] name) {
+        return startsWith(html, pos, name) && isTagNameEnd(html, pos + name.length);
+    }
+
+    private static boolean isTagNameEnd(byte[] html, int pos) {
+        return pos < html.length && isTagNameEnd(html[pos]);
+    }
+
+    private static boolean isTagNameEnd(byte b) {
+        return b == '>' || b == '/' || isWhitespace(b);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean startsWith(byte[] html, int pos, byte[] prefix) {
+        if (pos < 0 || pos + prefix.length > html.length) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (html[pos + i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int indexOf(byte[] html, byte b, int from) {
+        for (int i = Math.max(from, 0); i < html.length; i++) {
+            if (html[i] == b) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] html, byte b, int from) {
+        for (int i = Math.min(from, html.length - 1); i >= 0; i--) {
+            if (html[i] == b) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static int indexOf(byte[] html, byte[] pattern, int from) {
+        int last = html.length - pattern.length;
+        for (int i = indexOf(html, pattern[0], from); i >= 0 && i <= last; i = indexOf(html, pattern[0], i + 1)) {
+            if (startsWith(html, i, pattern)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,20 @@
+package sk.stuba.fiit.pipeline;
+
+public class FilmPage {
+
+    private final int id;
+    private final byte[] content;
+
+    public FilmPage(int id, byte[] content) {
+        this.id = id;
+        this.content = content;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,63 @@
+package sk.stuba.fiit.pipeline;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import sk.stuba.fiit.crawl.CSFDCrawler;
+import sk.stuba.fiit.crawl.IMDBCrawler;
+import sk.stuba.fiit.parse.CSFDParser;
+import sk.stuba.fiit.parse.IMDBParser;
+import sk.stuba.fiit.sink.JsonFileSink;
+import sk.stuba.fiit.sink.RecordBatcher;
+import sk.stuba.fiit.sink.RecordSink;
+
+public class StreamingCrawl {
+
+    private final int queueCapacity;
+    private final int parseWorkers;
+    private final int batchSize;
+
+    public StreamingCrawl() {
+        this(1_000, Runtime.getRuntime().availableProcessors(), 1_000);
+    }
+
+    public StreamingCrawl(int queueCapacity, int parseWorkers, int batchSize) {
+        this.queueCapacity = queueCapacity;
+        this.parseWorkers = parseWorkers;
+        this.batchSize = batchSize;
+    }
+
+    public void crawlAndParseCSFD(Path destPath) throws IOException, InterruptedException {
+        try (RecordSink sink = new JsonFileSink(destPath, "csfd_films_", batchSize)) {
+            crawlAndParseCSFD(sink);
+        }
+    }
+
+    public void crawlAndParseCSFD(RecordSink sink) throws IOException, InterruptedException {
+        CSFDParser parser = new CSFDParser();
+
+        try (RecordBatcher batcher = new RecordBatcher(sink, batchSize);
+                StreamingPipeline<FilmPage> pipeline = new StreamingPipeline<>("csfd", queueCapacity, parseWorkers,
+                        v -> parser.parsePage(v.getId(), v.getContent()), batcher::add)) {
+            CSFDCrawler.streaming(pipeline).crawlAndSave();
+        }
+    }
+
+    public void crawlAndParseIMDB(Path destPath) throws IOException, InterruptedException {
+        try (RecordSink sink = new JsonFileSink(destPath, "titles_", batchSize)) {
+            crawlAndParseIMDB(sink);
+        }
+    }
+
+    public void crawlAndParseIMDB(RecordSink sink) throws IOException, InterruptedException {
+        IMDBParser parser = new IMDBParser();
+
+        try (RecordBatcher batcher = new RecordBatcher(sink, batchSize);
+                StreamingPipeline<TitlePages> pipeline = new StreamingPipeline<>("imdb", queueCapacity, parseWorkers,
+                        v -> Optional.of(parser.parseTitle(v.getTitle(), v.getCast(), v.getSummary())),
+                        batcher::add)) {
+            IMDBCrawler.streaming(pipeline).crawlAndSave();
+        }
+    }
+}
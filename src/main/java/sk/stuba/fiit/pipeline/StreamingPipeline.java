@@ -0,0 +1,144 @@
+package sk.stuba.fiit.pipeline;
+
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Histogram;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class StreamingPipeline<T> implements Closeable {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> pages;
+    private final BlockingQueue<Object> records;
+
+    private final Function<T, Optional<JsonNode>> parse;
+    private final Consumer<JsonNode> sink;
+
+    private final int workers;
+    private final ExecutorService parseStage;
+    private final ExecutorService sinkStage;
+
+    private final String name;
+    private final Counter pagesParsed;
+    private final Histogram parseTime;
+
+    private volatile boolean closed;
+
+    public StreamingPipeline(int queueCapacity, int workers, Function<T, Optional<JsonNode>> parse,
+            Consumer<JsonNode> sink) {
+        this("pipeline", queueCapacity, workers, parse, sink);
+    }
+
+    public StreamingPipeline(String name, int queueCapacity, int workers, Function<T, Optional<JsonNode>> parse,
+            Consumer<JsonNode> sink) {
+        this.pages = new ArrayBlockingQueue<>(queueCapacity);
+        this.records = new ArrayBlockingQueue<>(queueCapacity);
+        this.parse = parse;
+        this.sink = sink;
+        this.workers = workers;
+
+        this.name = name;
+        this.pagesParsed = Metrics.counter("parse." + name + ".pages");
+        this.parseTime = Metrics.histogram("parse." + name + ".time");
+        Metrics.gauge("pipeline." + name + ".pages.queued", this::getPagesQueued);
+        Metrics.gauge("pipeline." + name + ".records.queued", this::getRecordsQueued);
+
+        this.parseStage = Executors.newFixedThreadPool(workers);
+        this.sinkStage = Executors.newSingleThreadExecutor();
+
+        for (int i = 0; i < workers; i++) {
+            parseStage.submit(this::runParseStage);
+        }
+        sinkStage.submit(this::runSinkStage);
+    }
+
+    public void submit(T page) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is already closed.");
+        }
+
+        pages.put(page);
+    }
+
+    public int getPagesQueued() {
+        return pages.size();
+    }
+
+    public int getRecordsQueued() {
+        return records.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runParseStage() {
+        try {
+            Object page;
+            while ((page = pages.take()) != END) {
+                long start = System.nanoTime();
+                try {
+                    Optional<JsonNode> record = parse.apply((T) page);
+                    parseTime.recordSince(start);
+                    pagesParsed.inc();
+
+                    if (record.isPresent()) {
+                        records.put(record.get());
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runSinkStage() {
+        try {
+            Object record;
+            while ((record = records.take()) != END) {
+                try {
+                    sink.accept((JsonNode) record);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            for (int i = 0; i < workers; i++) {
+                pages.put(END);
+            }
+            parseStage.shutdown();
+            parseStage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+            records.put(END);
+            sinkStage.shutdown();
+            sinkStage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            parseStage.shutdownNow();
+            sinkStage.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            Metrics.removeGauge("pipeline." + name + ".pages.queued");
+            Metrics.removeGauge("pipeline." + name + ".records.queued");
+        }
+    }
+}
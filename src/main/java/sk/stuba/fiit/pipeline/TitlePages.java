@@ -0,0 +1,36 @@
+package sk.stuba.fiit.pipeline;
+
+import java.util.Optional;
+
+import org.jsoup.nodes.Document;
+
+public class TitlePages {
+
+    private final String key;
+    private final Document title;
+    private final Optional<Document> cast;
+    private final Optional<Document> summary;
+
+    public TitlePages(String key, Document title, Optional<Document> cast, Optional<Document> summary) {
+        this.key = key;
+        this.title = title;
+        this.cast = cast;
+        this.summary = summary;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Document getTitle() {
+        return title;
+    }
+
+    public Optional<Document> getCast() {
+        return cast;
+    }
+
+    public Optional<Document> getSummary() {
+        return summary;
+    }
+}
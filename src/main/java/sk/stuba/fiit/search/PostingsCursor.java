@@ -0,0 +1,124 @@
+package sk.stuba.fiit.search;
+
+import java.nio.ByteBuffer;
+
+class PostingsCursor {
+
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+    static final int BLOCK_SIZE = 128;
+
+    private final ByteBuffer postings;
+    private final SearchField field;
+    private final int docFreq;
+    private final float weight;
+    private final int skipCount;
+    private final int skipsStart;
+    private final int dataStart;
+
+    private int position;
+    private int remaining;
+    private int last;
+    private int doc = -1;
+    private int freq;
+
+    PostingsCursor(ByteBuffer postings, int offset, int docFreq, SearchField field, float weight) {
+        this.postings = postings;
+        this.docFreq = docFreq;
+        this.field = field;
+        this.weight = weight;
+        this.skipCount = postings.getInt(offset);
+        this.skipsStart = offset + 4;
+        this.dataStart = skipsStart + skipCount * 8;
+        this.position = dataStart;
+        this.remaining = docFreq;
+    }
+
+    int doc() {
+        return doc;
+    }
+
+    int freq() {
+        return freq;
+    }
+
+    int docFreq() {
+        return docFreq;
+    }
+
+    SearchField field() {
+        return field;
+    }
+
+    float weight() {
+        return weight;
+    }
+
+    float maxScore(float k1) {
+        return weight * (k1 + 1);
+    }
+
+    int next() {
+        if (remaining == 0) {
+            return doc = NO_MORE_DOCS;
+        }
+
+        last += readVInt();
+        freq = readVInt();
+        remaining--;
+
+        return doc = last;
+    }
+
+    int advance(int target) {
+        if (doc >= target) {
+            return doc;
+        }
+
+        skipTo(target);
+
+        while (doc < target) {
+            next();
+        }
+
+        return doc;
+    }
+
+    private void skipTo(int target) {
+        int block = (docFreq - remaining) / BLOCK_SIZE;
+        if (block >= skipCount || getSkipDoc(block) >= target) {
+            return;
+        }
+
+        int low = block + 1;
+        int high = skipCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getSkipDoc(mid) >= target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        int skipped = low - 1;
+        last = getSkipDoc(skipped);
+        position = dataStart + postings.getInt(skipsStart + skipped * 8 + 4);
+        remaining = docFreq - (skipped + 1) * BLOCK_SIZE;
+    }
+
+    private int getSkipDoc(int block) {
+        return postings.getInt(skipsStart + block * 8);
+    }
+
+    private int readVInt() {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = postings.get(position++);
+            value |= (b & 0x7f) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package sk.stuba.fiit.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public enum SearchField {
+
+    NAME("nazov", "name", 3.0f),
+    DESCRIPTION("obsah", "description", 1.0f),
+    GENRES("zanre", "genres", 1.5f),
+    CAST("hraju", "cast", 1.2f),
+    COUNTRIES("krajiny", "countries", 1.0f);
+
+    private final String csfdField;
+    private final String imdbField;
+    private final float boost;
+
+    SearchField(String csfdField, String imdbField, float boost) {
+        this.csfdField = csfdField;
+        this.imdbField = imdbField;
+        this.boost = boost;
+    }
+
+    public float getBoost() {
+        return boost;
+    }
+
+    List<String> getValues(JsonNode record) {
+        JsonNode node = record.has(csfdField) ? record.get(csfdField) : record.path(imdbField);
+
+        List<String> values = new ArrayList<>();
+        if (node.isArray()) {
+            for (JsonNode value : node) {
+                values.add(value.isObject() ? value.path("name").asText() : value.asText());
+            }
+        } else if (node.isValueNode() && !node.isNull()) {
+            values.add(node.asText());
+        }
+
+        return values;
+    }
+}
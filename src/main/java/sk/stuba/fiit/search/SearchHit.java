@@ -0,0 +1,37 @@
+package sk.stuba.fiit.search;
+
+public class SearchHit {
+
+    private final String id;
+    private final float score;
+    private final int year;
+    private final float rating;
+
+    SearchHit(String id, float score, int year, float rating) {
+        this.id = id;
+        this.score = score;
+        this.year = year;
+        this.rating = rating;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public float getRating() {
+        return rating;
+    }
+
+    @Override
+    public String toString() {
+        return id + " (" + year + ", rating " + rating + ", score " + score + ")";
+    }
+}
@@ -0,0 +1,320 @@
+package sk.stuba.fiit.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import sk.stuba.fiit.metrics.Histogram;
+import sk.stuba.fiit.metrics.Metrics;
+
+public class SearchIndex {
+
+    static final String TERMS_FILE = "terms.bin";
+    static final String POSTINGS_FILE = "postings.bin";
+    static final String DOCS_FILE = "docs.bin";
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final int TERM_ENTRY_BYTES = 12;
+
+    private static final Histogram QUERY_TIME = Metrics.histogram("search.query");
+
+    private static final Comparator<SearchHit> BY_SCORE = Comparator.comparingDouble(SearchHit::getScore);
+
+    private final ByteBuffer terms;
+    private final ByteBuffer postings;
+    private final ByteBuffer docs;
+
+    private final int termCount;
+    private final int keyOffsetsStart;
+    private final int keysStart;
+
+    private final int docCount;
+    private final int fieldCount;
+    private final float[] averageLengths;
+    private final int lengthsStart;
+    private final int yearsStart;
+    private final int ratingsStart;
+    private final int idOffsetsStart;
+    private final int idsStart;
+
+    private SearchIndex(Path dir) throws IOException {
+        this.terms = map(dir.resolve(TERMS_FILE));
+        this.postings = map(dir.resolve(POSTINGS_FILE));
+        this.docs = map(dir.resolve(DOCS_FILE));
+
+        this.termCount = terms.getInt(0);
+        this.keyOffsetsStart = 4 + termCount * TERM_ENTRY_BYTES;
+        this.keysStart = keyOffsetsStart + (termCount + 1) * 4;
+
+        this.docCount = docs.getInt(0);
+        this.fieldCount = docs.getInt(4);
+        if (fieldCount != SearchField.values().length) {
+            throw new IOException("Search index in " + dir + " has " + fieldCount + " fields, expected "
+                    + SearchField.values().length + ".");
+        }
+
+        this.averageLengths = new float[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            averageLengths[i] = docCount == 0 ? 0 : (float) docs.getLong(8 + i * 8) / docCount;
+        }
+
+        this.lengthsStart = 8 + fieldCount * 8;
+        this.yearsStart = lengthsStart + docCount * fieldCount * 4;
+        this.ratingsStart = yearsStart + docCount * 4;
+        this.idOffsetsStart = ratingsStart + docCount * 4;
+        this.idsStart = idOffsetsStart + (docCount + 1) * 4;
+    }
+
+    public static SearchIndex open(Path dir) throws IOException {
+        return new SearchIndex(dir);
+    }
+
+    private static MappedByteBuffer map(Path p) throws IOException {
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index file " + p + " is too large to map (" + channel.size() + " bytes).");
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public int size() {
+        return docCount;
+    }
+
+    public int docFreq(SearchField field, String term) {
+        int ord = findTerm(termKey(field, term));
+
+        return ord < 0 ? 0 : terms.getInt(4 + ord * TERM_ENTRY_BYTES + 8);
+    }
+
+    public List<SearchHit> search(String text, int limit) {
+        return search(SearchQuery.text(text), limit);
+    }
+
+    public List<SearchHit> search(SearchQuery query, int limit) {
+        long start = System.nanoTime();
+
+        List<PostingsCursor> required = new ArrayList<>();
+        List<PostingsCursor> optional = new ArrayList<>();
+        List<PostingsCursor> excluded = new ArrayList<>();
+
+        for (SearchQuery.Clause clause : query.getClauses()) {
+            PostingsCursor cursor = getCursor(clause.getField(), clause.getTerm());
+
+            if (clause.getOccur() == SearchQuery.Occur.MUST) {
+                if (cursor == null) {
+                    QUERY_TIME.recordSince(start);
+                    return Collections.emptyList();
+                }
+                required.add(cursor);
+            } else if (cursor != null) {
+                (clause.getOccur() == SearchQuery.Occur.SHOULD ? optional : excluded).add(cursor);
+            }
+        }
+
+        required.sort(Comparator.comparingInt(PostingsCursor::docFreq));
+        optional.sort(Comparator.comparingDouble(v -> v.maxScore(K1)));
+
+        float[] bounds = new float[optional.size()];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = (i > 0 ? bounds[i - 1] : 0) + optional.get(i).maxScore(K1);
+        }
+
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, BY_SCORE);
+        boolean filterOnly = required.isEmpty() && optional.isEmpty();
+        int firstEssential = 0;
+
+        int doc = -1;
+        while ((doc = filterOnly ? doc + 1 : nextCandidate(doc + 1, required, optional, firstEssential)) < docCount) {
+            if (isExcluded(doc, excluded) || !query.accepts(getYear(doc), getRating(doc))) {
+                continue;
+            }
+
+            float score = score(doc, required) + score(doc, optional);
+            if (top.size() < limit) {
+                top.add(new SearchHit(getId(doc), score, getYear(doc), getRating(doc)));
+            } else if (limit > 0 && score > top.peek().getScore()) {
+                top.poll();
+                top.add(new SearchHit(getId(doc), score, getYear(doc), getRating(doc)));
+            } else {
+                continue;
+            }
+
+            if (required.isEmpty() && top.size() == limit) {
+                while (firstEssential < bounds.length && bounds[firstEssential] <= top.peek().getScore()) {
+                    firstEssential++;
+                }
+
+                if (!filterOnly && firstEssential == bounds.length) {
+                    break;
+                }
+            }
+        }
+
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(BY_SCORE.reversed());
+
+        QUERY_TIME.recordSince(start);
+
+        return hits;
+    }
+
+    private int nextCandidate(int target, List<PostingsCursor> required, List<PostingsCursor> optional,
+            int firstEssential) {
+        if (required.isEmpty()) {
+            int min = PostingsCursor.NO_MORE_DOCS;
+            for (int i = firstEssential; i < optional.size(); i++) {
+                min = Math.min(min, optional.get(i).advance(target));
+            }
+
+            return min;
+        }
+
+        int doc = required.get(0).advance(target);
+        for (int i = 1; i < required.size() && doc != PostingsCursor.NO_MORE_DOCS;) {
+            int other = required.get(i).advance(doc);
+            if (other == doc) {
+                i++;
+            } else {
+                doc = required.get(0).advance(other);
+                i = 1;
+            }
+        }
+
+        return doc;
+    }
+
+    private boolean isExcluded(int doc, List<PostingsCursor> excluded) {
+        for (PostingsCursor cursor : excluded) {
+            if (cursor.advance(doc) == doc) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private float score(int doc, List<PostingsCursor> cursors) {
+        float score = 0;
+        for (PostingsCursor cursor : cursors) {
+            if (cursor.advance(doc) != doc) {
+                continue;
+            }
+
+            int field = cursor.field().ordinal();
+            float tf = cursor.freq();
+            float norm = averageLengths[field] == 0 ? 1 : getFieldLength(doc, field) / averageLengths[field];
+
+            score += cursor.weight() * tf * (K1 + 1) / (tf + K1 * (1 - B + B * norm));
+        }
+
+        return score;
+    }
+
+    private PostingsCursor getCursor(SearchField field, String term) {
+        int ord = findTerm(termKey(field, term));
+        if (ord < 0) {
+            return null;
+        }
+
+        int entry = 4 + ord * TERM_ENTRY_BYTES;
+        int docFreq = terms.getInt(entry + 8);
+        float idf = (float) Math.log(1 + (docCount - docFreq + 0.5) / (docFreq + 0.5));
+
+        return new PostingsCursor(postings, (int) terms.getLong(entry), docFreq, field, field.getBoost() * idf);
+    }
+
+    private int findTerm(byte[] key) {
+        int low = 0;
+        int high = termCount - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int c = compareTermAt(mid, key);
+
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
+    private int compareTermAt(int ord, byte[] key) {
+        int from = keysStart + terms.getInt(keyOffsetsStart + ord * 4);
+        int to = keysStart + terms.getInt(keyOffsetsStart + (ord + 1) * 4);
+
+        int length = Math.min(to - from, key.length);
+        for (int i = 0; i < length; i++) {
+            int c = Integer.compare(terms.get(from + i) & 0xff, key[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+
+        return Integer.compare(to - from, key.length);
+    }
+
+    private int getFieldLength(int doc, int field) {
+        return docs.getInt(lengthsStart + (doc * fieldCount + field) * 4);
+    }
+
+    public int getYear(int doc) {
+        return docs.getInt(yearsStart + doc * 4);
+    }
+
+    public float getRating(int doc) {
+        return docs.getFloat(ratingsStart + doc * 4);
+    }
+
+    public String getId(int doc) {
+        int from = docs.getInt(idOffsetsStart + doc * 4);
+        int to = docs.getInt(idOffsetsStart + (doc + 1) * 4);
+
+        byte[] id = new byte[to - from];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = docs.get(idsStart + from + i);
+        }
+
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    static byte[] termKey(SearchField field, String term) {
+        byte[] token = term.getBytes(StandardCharsets.UTF_8);
+
+        byte[] key = new byte[token.length + 1];
+        key[0] = (byte) field.ordinal();
+        System.arraycopy(token, 0, key, 1, token.length);
+
+        return key;
+    }
+
+    static int compareKeys(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int c = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+
+        return Integer.compare(a.length, b.length);
+    }
+}
@@ -0,0 +1,286 @@
+package sk.stuba.fiit.search;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.link.ParsedRecords;
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.util.BulkEncoder;
+
+public class SearchIndexWriter implements Closeable {
+
+    private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Counter DOCS_INDEXED = Metrics.counter("search.docs.indexed");
+
+    private static final SearchField[] FIELDS = SearchField.values();
+
+    private final Path dir;
+    private final List<Map<String, TermPostings>> terms = new ArrayList<>();
+    private final long[] totalLengths = new long[FIELDS.length];
+    private final List<String> ids = new ArrayList<>();
+
+    private int[] fieldLengths = new int[1_024 * FIELDS.length];
+    private int[] years = new int[1_024];
+    private float[] ratings = new float[1_024];
+    private int docCount;
+
+    private SearchIndexWriter(Path dir) throws IOException {
+        this.dir = dir;
+
+        Files.createDirectories(dir);
+        for (int i = 0; i < FIELDS.length; i++) {
+            terms.add(new HashMap<>());
+        }
+    }
+
+    public static SearchIndexWriter create(Path dir) throws IOException {
+        return new SearchIndexWriter(dir);
+    }
+
+    public void addAll(Path srcDir, String filePrefix) throws IOException {
+        ParsedRecords.forEachLive(srcDir, filePrefix, this::add);
+    }
+
+    public synchronized void add(JsonNode record) throws IOException {
+        if (docCount == years.length) {
+            grow();
+        }
+
+        int doc = docCount++;
+
+        for (SearchField field : FIELDS) {
+            Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+
+            for (String value : field.getValues(record)) {
+                for (String token : Analyzer.tokenize(value)) {
+                    frequencies.merge(token, 1, Integer::sum);
+                    length++;
+                }
+            }
+
+            Map<String, TermPostings> fieldTerms = terms.get(field.ordinal());
+            for (Map.Entry<String, Integer> e : frequencies.entrySet()) {
+                fieldTerms.computeIfAbsent(e.getKey(), v -> new TermPostings()).add(doc, e.getValue());
+            }
+
+            fieldLengths[doc * FIELDS.length + field.ordinal()] = length;
+            totalLengths[field.ordinal()] += length;
+        }
+
+        ids.add(BulkEncoder.getDocumentId(record));
+        years[doc] = getYear(record);
+        ratings[doc] = getRating(record);
+
+        DOCS_INDEXED.inc();
+    }
+
+    static int getYear(JsonNode record) {
+        Matcher m = YEAR.matcher(record.has("rok") ? record.path("rok").asText() : record.path("publishDate").asText());
+
+        return m.find() ? Integer.parseInt(m.group()) : 0;
+    }
+
+    static float getRating(JsonNode record) {
+        JsonNode rating = record.path("rating");
+
+        double value = getNumber(rating.path("ratingValue"));
+        double best = getNumber(rating.path("bestRating"));
+        if (Double.isNaN(value)) {
+            value = getNumber(rating.path("average"));
+            best = 100;
+        }
+
+        if (Double.isNaN(value)) {
+            return Float.NaN;
+        }
+
+        return (float) (Double.isNaN(best) || best <= 0 ? value : value / best * 10);
+    }
+
+    private static double getNumber(JsonNode node) {
+        if (node.isNumber()) {
+            return node.asDouble();
+        }
+
+        if (node.isTextual()) {
+            try {
+                return Double.parseDouble(node.textValue().replace(',', '.').replace("%", "").trim());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        return Double.NaN;
+    }
+
+    private void grow() {
+        int capacity = years.length * 2;
+
+        fieldLengths = Arrays.copyOf(fieldLengths, capacity * FIELDS.length);
+        years = Arrays.copyOf(years, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writeTermsAndPostings();
+        writeDocs();
+
+        System.out.println("Indexed " + docCount + " documents into " + dir + ".");
+    }
+
+    private void writeTermsAndPostings() throws IOException {
+        List<Map.Entry<byte[], TermPostings>> entries = new ArrayList<>();
+        for (SearchField field : FIELDS) {
+            for (Map.Entry<String, TermPostings> e : terms.get(field.ordinal()).entrySet()) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(SearchIndex.termKey(field, e.getKey()), e.getValue()));
+            }
+        }
+
+        entries.sort((a, b) -> SearchIndex.compareKeys(a.getKey(), b.getKey()));
+
+        try (DataOutputStream dos = open(SearchIndex.POSTINGS_FILE)) {
+            for (Map.Entry<byte[], TermPostings> e : entries) {
+                e.getValue().writeTo(dos);
+            }
+        }
+
+        try (DataOutputStream dos = open(SearchIndex.TERMS_FILE)) {
+            dos.writeInt(entries.size());
+
+            long offset = 0;
+            for (Map.Entry<byte[], TermPostings> e : entries) {
+                dos.writeLong(offset);
+                dos.writeInt(e.getValue().docFreq);
+                offset += e.getValue().size();
+            }
+
+            int keyOffset = 0;
+            for (Map.Entry<byte[], TermPostings> e : entries) {
+                dos.writeInt(keyOffset);
+                keyOffset += e.getKey().length;
+            }
+            dos.writeInt(keyOffset);
+
+            for (Map.Entry<byte[], TermPostings> e : entries) {
+                dos.write(e.getKey());
+            }
+        }
+    }
+
+    private void writeDocs() throws IOException {
+        try (DataOutputStream dos = open(SearchIndex.DOCS_FILE)) {
+            dos.writeInt(docCount);
+            dos.writeInt(FIELDS.length);
+
+            for (long totalLength : totalLengths) {
+                dos.writeLong(totalLength);
+            }
+
+            for (int i = 0; i < docCount * FIELDS.length; i++) {
+                dos.writeInt(fieldLengths[i]);
+            }
+
+            for (int i = 0; i < docCount; i++) {
+                dos.writeInt(years[i]);
+            }
+
+            for (int i = 0; i < docCount; i++) {
+                dos.writeFloat(ratings[i]);
+            }
+
+            List<byte[]> idBytes = new ArrayList<>(ids.size());
+            int idOffset = 0;
+            for (String id : ids) {
+                byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+                idBytes.add(bytes);
+
+                dos.writeInt(idOffset);
+                idOffset += bytes.length;
+            }
+            dos.writeInt(idOffset);
+
+            for (byte[] bytes : idBytes) {
+                dos.write(bytes);
+            }
+        }
+    }
+
+    private DataOutputStream open(String fileName) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dir.resolve(fileName)), BUFFER_SIZE));
+    }
+
+    private static class TermPostings {
+
+        private byte[] bytes = new byte[8];
+        private int length;
+        private int lastDoc;
+        private int docFreq;
+
+        private int[] skips = new int[0];
+        private int skipCount;
+
+        void add(int doc, int freq) {
+            writeVInt(doc - lastDoc);
+            writeVInt(freq);
+
+            lastDoc = doc;
+            docFreq++;
+
+            if (docFreq % PostingsCursor.BLOCK_SIZE == 0) {
+                if (skipCount * 2 == skips.length) {
+                    skips = Arrays.copyOf(skips, Math.max(8, skips.length * 2));
+                }
+
+                skips[skipCount * 2] = doc;
+                skips[skipCount * 2 + 1] = length;
+                skipCount++;
+            }
+        }
+
+        int size() {
+            return 4 + skipCount * 8 + length;
+        }
+
+        void writeTo(DataOutputStream dos) throws IOException {
+            dos.writeInt(skipCount);
+            for (int i = 0; i < skipCount * 2; i++) {
+                dos.writeInt(skips[i]);
+            }
+
+            dos.write(bytes, 0, length);
+        }
+
+        private void writeVInt(int value) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+
+            while ((value & ~0x7f) != 0) {
+                bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package sk.stuba.fiit.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SearchQuery {
+
+    enum Occur {
+        MUST, SHOULD, MUST_NOT
+    }
+
+    static class Clause {
+
+        private final SearchField field;
+        private final String term;
+        private final Occur occur;
+
+        Clause(SearchField field, String term, Occur occur) {
+            this.field = field;
+            this.term = term;
+            this.occur = occur;
+        }
+
+        SearchField getField() {
+            return field;
+        }
+
+        String getTerm() {
+            return term;
+        }
+
+        Occur getOccur() {
+            return occur;
+        }
+    }
+
+    private final List<Clause> clauses;
+    private final int minYear;
+    private final int maxYear;
+    private final float minRating;
+
+    private SearchQuery(List<Clause> clauses, int minYear, int maxYear, float minRating) {
+        this.clauses = Collections.unmodifiableList(clauses);
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        this.minRating = minRating;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static SearchQuery text(String text) {
+        Builder builder = builder();
+        for (SearchField field : SearchField.values()) {
+            builder.should(field, text);
+        }
+
+        return builder.build();
+    }
+
+    List<Clause> getClauses() {
+        return clauses;
+    }
+
+    boolean accepts(int year, float rating) {
+        if (year < minYear || year > maxYear) {
+            return false;
+        }
+
+        return minRating <= 0 || rating >= minRating;
+    }
+
+    public static class Builder {
+
+        private final List<Clause> clauses = new ArrayList<>();
+        private int minYear = Integer.MIN_VALUE;
+        private int maxYear = Integer.MAX_VALUE;
+        private float minRating;
+
+        private Builder() {
+        }
+
+        public Builder must(SearchField field, String text) {
+            return add(field, text, Occur.MUST);
+        }
+
+        public Builder should(SearchField field, String text) {
+            return add(field, text, Occur.SHOULD);
+        }
+
+        public Builder mustNot(SearchField field, String text) {
+            return add(field, text, Occur.MUST_NOT);
+        }
+
+        public Builder years(int from, int to) {
+            this.minYear = from;
+            this.maxYear = to;
+            return this;
+        }
+
+        public Builder minRating(float minRating) {
+            this.minRating = minRating;
+            return this;
+        }
+
+        public SearchQuery build() {
+            return new SearchQuery(new ArrayList<>(clauses), minYear, maxYear, minRating);
+        }
+
+        private Builder add(SearchField field, String text, Occur occur) {
+            for (String token : Analyzer.tokenize(text)) {
+                clauses.add(new Clause(field, token, occur));
+            }
+
+            return this;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package sk.stuba.fiit.sink;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
+import sk.stuba.fiit.util.BulkEncoder;
+
+public class BulkFileSink implements RecordSink {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Counter BULK_RECORDS = Metrics.counter("sink.bulk.records");
+
+    private final Path destPath;
+    private final String filePrefix;
+    private final int recordsPerFile;
+    private final BulkEncoder encoder;
+
+    private JsonGenerator generator;
+    private int recordsInFile;
+    private int count;
+
+    public BulkFileSink(Path destPath, String filePrefix, int recordsPerFile, String index) throws IOException {
+        if (recordsPerFile < 1) {
+            throw new IllegalArgumentException("Records per file must be positive, was " + recordsPerFile + ".");
+        }
+
+        Files.createDirectories(destPath);
+
+        this.destPath = destPath;
+        this.filePrefix = filePrefix;
+        this.recordsPerFile = recordsPerFile;
+        this.encoder = new BulkEncoder(index);
+        this.count = getNextFile(destPath, filePrefix);
+    }
+
+    @Override
+    public synchronized void accept(List<JsonNode> records) throws IOException {
+        for (JsonNode record : records) {
+            if (generator == null) {
+                generator = encoder.createGenerator(new BufferedOutputStream(
+                        Files.newOutputStream(destPath.resolve(filePrefix + count + "_bulk.json")), BUFFER_SIZE));
+            }
+
+            encoder.write(generator, record);
+            BULK_RECORDS.inc();
+
+            if (++recordsInFile >= recordsPerFile) {
+                closeFile();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (generator != null) {
+            generator.flush();
+        }
+    }
+
+    private void closeFile() throws IOException {
+        generator.close();
+
+        generator = null;
+        recordsInFile = 0;
+        count++;
+    }
+
+    private static int getNextFile(Path destPath, String filePrefix) throws IOException {
+        Pattern bulkFile = Pattern.compile(Pattern.quote(filePrefix) + "(\\d+)_bulk\\.json");
+        try (Stream<Path> files = Files.list(destPath)) {
+            return files.map(v -> bulkFile.matcher(v.getFileName().toString()))//
+                    .filter(Matcher::matches)//
+                    .mapToInt(v -> Integer.parseInt(v.group(1)))//
+                    .max().orElse(0) + 1;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (generator != null) {
+            closeFile();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package sk.stuba.fiit.sink;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class CompositeSink implements RecordSink {
+
+    private final List<RecordSink> sinks;
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private final List<Future<?>> pending = new ArrayList<>();
+
+    public CompositeSink(RecordSink... sinks) {
+        this(Arrays.asList(sinks));
+    }
+
+    public CompositeSink(List<RecordSink> sinks) {
+        this.sinks = new ArrayList<>(sinks);
+
+        for (int i = 0; i < sinks.size(); i++) {
+            executors.add(Executors.newSingleThreadExecutor());
+            pending.add(null);
+        }
+    }
+
+    @Override
+    public synchronized void accept(List<JsonNode> records) throws IOException {
+        List<JsonNode> batch = Collections.unmodifiableList(records);
+
+        for (int i = 0; i < sinks.size(); i++) {
+            RecordSink sink = sinks.get(i);
+            if (!sink.acceptsDeltas()) {
+                continue;
+            }
+
+            await(i);
+            pending.set(i, executors.get(i).submit(() -> {
+                sink.accept(batch);
+                return null;
+            }));
+        }
+    }
+
+    @Override
+    public synchronized void acceptSnapshot(List<JsonNode> records) throws IOException {
+        List<JsonNode> batch = Collections.unmodifiableList(records);
+
+        for (int i = 0; i < sinks.size(); i++) {
+            RecordSink sink = sinks.get(i);
+            if (!sink.isSnapshot()) {
+                continue;
+            }
+
+            await(i);
+            pending.set(i, executors.get(i).submit(() -> {
+                sink.acceptSnapshot(batch);
+                return null;
+            }));
+        }
+    }
+
+    @Override
+    public boolean isSnapshot() {
+        return sinks.stream().anyMatch(RecordSink::isSnapshot);
+    }
+
+    @Override
+    public boolean acceptsDeltas() {
+        return sinks.stream().anyMatch(RecordSink::acceptsDeltas);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        for (int i = 0; i < sinks.size(); i++) {
+            RecordSink sink = sinks.get(i);
+
+            await(i);
+            pending.set(i, executors.get(i).submit(() -> {
+                sink.flush();
+                return null;
+            }));
+        }
+
+        awaitAll();
+    }
+
+    private void await(int i) throws IOException {
+        Future<?> previous = pending.get(i);
+        if (previous == null) {
+            return;
+        }
+
+        pending.set(i, null);
+        try {
+            previous.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + sinks.get(i) + ".", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new IOException("Sink " + sinks.get(i) + " failed.", e.getCause());
+        }
+    }
+
+    private void awaitAll() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < sinks.size(); i++) {
+            try {
+                await(i);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        try {
+            awaitAll();
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        for (int i = 0; i < sinks.size(); i++) {
+            executors.get(i).shutdown();
+            try {
+                executors.get(i).awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                sinks.get(i).close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package sk.stuba.fiit.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.util.BulkEncoder;
+import sk.stuba.fiit.util.BulkIndexer;
+
+public class ElasticSink implements RecordSink {
+
+    private final BulkEncoder encoder;
+    private final BulkIndexer indexer;
+    private final Closeable client;
+
+    public ElasticSink(String index, BulkIndexer indexer, Closeable client) {
+        this.encoder = new BulkEncoder(index);
+        this.indexer = indexer;
+        this.client = client;
+    }
+
+    @Override
+    public void accept(List<JsonNode> records) throws IOException {
+        for (JsonNode record : records) {
+            encoder.index(record, indexer);
+        }
+    }
+
+    @Override
+    public void flush() {
+        indexer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            indexer.close();
+        } finally {
+            client.close();
+        }
+
+        System.out.println(indexer.getStats());
+    }
+}
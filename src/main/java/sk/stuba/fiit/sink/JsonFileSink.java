@@ -0,0 +1,36 @@
+package sk.stuba.fiit.sink;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.parse.JsonBatchWriter;
+
+public class JsonFileSink implements RecordSink {
+
+    private final JsonBatchWriter writer;
+
+    public JsonFileSink(Path destPath, String filePrefix, int recordsPerFile) throws IOException {
+        Files.createDirectories(destPath);
+        this.writer = new JsonBatchWriter(destPath, filePrefix, recordsPerFile);
+    }
+
+    @Override
+    public void accept(List<JsonNode> records) {
+        for (JsonNode record : records) {
+            writer.write(record);
+        }
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,59 @@
+package sk.stuba.fiit.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class RecordBatcher implements Closeable {
+
+    private final RecordSink sink;
+    private final int batchSize;
+
+    private List<JsonNode> batch;
+
+    public RecordBatcher(RecordSink sink, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive, was " + batchSize + ".");
+        }
+
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    public synchronized void add(JsonNode record) {
+        batch.add(record);
+
+        if (batch.size() >= batchSize) {
+            emit();
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        if (!batch.isEmpty()) {
+            emit();
+        }
+
+        sink.flush();
+    }
+
+    private void emit() {
+        List<JsonNode> full = batch;
+        batch = new ArrayList<>(batchSize);
+
+        try {
+            sink.accept(full);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,62 @@
+package sk.stuba.fiit.sink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public interface RecordSink extends Closeable {
+
+    void accept(List<JsonNode> records) throws IOException;
+
+    void flush() throws IOException;
+
+    default boolean isSnapshot() {
+        return false;
+    }
+
+    default boolean acceptsDeltas() {
+        return !isSnapshot();
+    }
+
+    default void acceptSnapshot(List<JsonNode> records) throws IOException {
+        accept(records);
+    }
+
+    static RecordSink snapshotOf(RecordSink sink) {
+        return new RecordSink() {
+
+            @Override
+            public void accept(List<JsonNode> records) throws IOException {
+                sink.acceptSnapshot(records);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                sink.flush();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    static RecordSink discard() {
+        return new RecordSink() {
+
+            @Override
+            public void accept(List<JsonNode> records) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package sk.stuba.fiit.sink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import sk.stuba.fiit.search.SearchIndexWriter;
+import sk.stuba.fiit.util.BulkEncoder;
+
+public class SearchIndexSink implements RecordSink {
+
+    private final SearchIndexWriter writer;
+
+    public SearchIndexSink(Path indexDir) throws IOException {
+        this.writer = SearchIndexWriter.create(indexDir);
+    }
+
+    @Override
+    public void accept(List<JsonNode> records) throws IOException {
+        for (JsonNode record : records) {
+            if (!BulkEncoder.isTombstone(record)) {
+                writer.add(record);
+            }
+        }
+    }
+
+    @Override
+    public boolean isSnapshot() {
+        return true;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
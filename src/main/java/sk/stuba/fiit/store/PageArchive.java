@@ -0,0 +1,252 @@
+package sk.stuba.fiit.store;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class PageArchive implements Closeable {
+
+    private static final String INDEX_FILE = "index.tsv";
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 256L * 1024 * 1024;
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+
+    private final Map<String, RecordLocation> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readers = new ConcurrentHashMap<>();
+
+    private final BufferedWriter indexWriter;
+    private FileChannel segment;
+    private int segmentNumber;
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(String key, byte[] content) throws IOException;
+    }
+
+    private PageArchive(Path dir, long maxSegmentBytes) throws IOException {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+
+        Files.createDirectories(dir);
+        loadIndex();
+
+        this.segmentNumber = index.values().stream().mapToInt(RecordLocation::getSegment).max().orElse(0);
+        this.segment = openSegment(segmentNumber);
+        this.indexWriter = Files.newBufferedWriter(dir.resolve(INDEX_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public static PageArchive open(Path dir) throws IOException {
+        return new PageArchive(dir, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    public static PageArchive open(Path dir, long maxSegmentBytes) throws IOException {
+        return new PageArchive(dir, maxSegmentBytes);
+    }
+
+    private void loadIndex() throws IOException {
+        Path indexPath = dir.resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+
+        try (BufferedReader br = Files.newBufferedReader(indexPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] tokens = line.split("\t");
+                if (tokens.length == 4) {
+                    index.put(tokens[0], new RecordLocation(Integer.parseInt(tokens[1]), Long.parseLong(tokens[2]),
+                            Integer.parseInt(tokens[3])));
+                }
+            }
+        }
+    }
+
+    public void put(String key, String content) throws IOException {
+        put(key, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void put(String key, byte[] content) throws IOException {
+        if (key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Archive key must not contain tabs or new lines: " + key);
+        }
+
+        byte[] record = compressRecord(key, content);
+
+        synchronized (this) {
+            if (segment.size() > 0 && segment.size() + record.length > maxSegmentBytes) {
+                segment.close();
+                segment = openSegment(++segmentNumber);
+            }
+
+            long offset = segment.size();
+            ByteBuffer bb = ByteBuffer.wrap(record);
+            while (bb.hasRemaining()) {
+                segment.write(bb, offset + bb.position());
+            }
+
+            RecordLocation location = new RecordLocation(segmentNumber, offset, record.length);
+            indexWriter.write(key + "\t" + location.getSegment() + "\t" + location.getOffset() + "\t" + location.getLength());
+            indexWriter.newLine();
+            indexWriter.flush();
+
+            index.put(key, location);
+        }
+    }
+
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public Optional<byte[]> get(String key) throws IOException {
+        RecordLocation location = index.get(key);
+        if (location == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(readRecord(location));
+    }
+
+    public Optional<String> getVersion(String key) {
+        return Optional.ofNullable(index.get(key))
+                .map(v -> v.getSegment() + ":" + v.getOffset() + ":" + v.getLength());
+    }
+
+    public Optional<String> getString(String key) throws IOException {
+        return get(key).map(v -> new String(v, StandardCharsets.UTF_8));
+    }
+
+    public void forEach(RecordConsumer consumer) throws IOException {
+        for (String key : keysInArchiveOrder()) {
+            consumer.accept(key, readRecord(index.get(key)));
+        }
+    }
+
+    public List<String> keysInArchiveOrder() {
+        return index.entrySet().stream()//
+                .sorted(Comparator.comparing(Map.Entry::getValue))//
+                .map(Map.Entry::getKey)//
+                .collect(Collectors.toList());
+    }
+
+    private byte[] readRecord(RecordLocation location) throws IOException {
+        FileChannel channel = readers.computeIfAbsent(location.getSegment(), this::openReader);
+
+        ByteBuffer bb = ByteBuffer.allocate(location.getLength());
+        while (bb.hasRemaining()) {
+            if (channel.read(bb, location.getOffset() + bb.position()) < 0) {
+                throw new IOException("Truncated record at " + location + " in " + dir + ".");
+            }
+        }
+
+        return decompressRecord(bb.array());
+    }
+
+    private byte[] compressRecord(String key, byte[] content) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length / 4 + 64);
+
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos, 8 * 1024)) {
+            String header = "Key: " + key + "\r\nContent-Length: " + content.length + "\r\n\r\n";
+            gos.write(header.getBytes(StandardCharsets.UTF_8));
+            gos.write(content);
+        }
+
+        return bos.toByteArray();
+    }
+
+    private byte[] decompressRecord(byte[] record) throws IOException {
+        try (DataInputStream dis =
+                new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(record), 8 * 1024))) {
+            int contentLength = -1;
+
+            String line;
+            while (!(line = readHeaderLine(dis)).isEmpty()) {
+                if (line.startsWith("Content-Length: ")) {
+                    contentLength = Integer.parseInt(line.substring("Content-Length: ".length()));
+                }
+            }
+
+            if (contentLength < 0) {
+                throw new IOException("Archive record without Content-Length in " + dir + ".");
+            }
+
+            byte[] content = new byte[contentLength];
+            dis.readFully(content);
+
+            return content;
+        }
+    }
+
+    private String readHeaderLine(InputStream is) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+
+        int b;
+        while ((b = is.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("Unexpected end of archive record header in " + dir + ".");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private FileChannel openSegment(int number) throws IOException {
+        return FileChannel.open(getSegmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+    }
+
+    private FileChannel openReader(int number) {
+        try {
+            return FileChannel.open(getSegmentPath(number), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IllegalStateException("Was not able to open archive segment " + number + " in " + dir + ".", e);
+        }
+    }
+
+    private Path getSegmentPath(int number) {
+        return dir.resolve(String.format("segment-%05d.warc.gz", number));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        indexWriter.close();
+        segment.close();
+
+        for (FileChannel reader : readers.values()) {
+            reader.close();
+        }
+    }
+}
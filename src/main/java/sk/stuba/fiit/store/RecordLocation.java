@@ -0,0 +1,37 @@
+package sk.stuba.fiit.store;
+
+public class RecordLocation implements Comparable<RecordLocation> {
+
+    private final int segment;
+    private final long offset;
+    private final int length;
+
+    public RecordLocation(int segment, long offset, int length) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int getSegment() {
+        return segment;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int compareTo(RecordLocation o) {
+        int result = Integer.compare(segment, o.segment);
+        return result != 0 ? result : Long.compare(offset, o.offset);
+    }
+
+    @Override
+    public String toString() {
+        return "segment " + segment + " offset " + offset + " length " + length;
+    }
+}
@@ -0,0 +1,113 @@
+package sk.stuba.fiit.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import sk.stuba.fiit.metrics.Metrics;
+
+public class WriteBehindArchive implements Closeable {
+
+    private static final Write END = new Write(null, null, null);
+
+    private static final String QUEUED = "io.writeBehind.queued";
+
+    private final PageArchive archive;
+    private final BlockingQueue<Write> queue;
+    private final Thread writer;
+
+    private volatile IOException failure;
+
+    private static class Write {
+
+        private final String key;
+        private final byte[] content;
+        private final Runnable onWritten;
+
+        private Write(String key, byte[] content, Runnable onWritten) {
+            this.key = key;
+            this.content = content;
+            this.onWritten = onWritten;
+        }
+    }
+
+    public WriteBehindArchive(PageArchive archive, int capacity) {
+        this.archive = archive;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.writer = new Thread(this::runWriter, "archive-writer");
+        writer.start();
+
+        Metrics.gauge(QUEUED, queue::size);
+    }
+
+    public void put(String key, String content) throws IOException, InterruptedException {
+        put(key, content.getBytes(StandardCharsets.UTF_8), null);
+    }
+
+    public void put(String key, String content, Runnable onWritten) throws IOException, InterruptedException {
+        put(key, content.getBytes(StandardCharsets.UTF_8), onWritten);
+    }
+
+    public void put(String key, byte[] content, Runnable onWritten) throws IOException, InterruptedException {
+        checkFailure();
+        queue.put(new Write(key, content, onWritten));
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        try {
+            Write write;
+            while ((write = queue.take()) != END) {
+                if (failure != null) {
+                    continue;
+                }
+
+                try {
+                    archive.put(write.key, write.content);
+                } catch (IOException e) {
+                    failure = e;
+                    continue;
+                }
+
+                if (write.onWritten != null) {
+                    try {
+                        write.onWritten.run();
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Write-behind to the page archive failed.", failure);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while draining the write-behind queue.");
+        } finally {
+            Metrics.removeGauge(QUEUED);
+        }
+
+        checkFailure();
+    }
+}
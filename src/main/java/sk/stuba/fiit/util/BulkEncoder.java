@@ -0,0 +1,131 @@
+package sk.stuba.fiit.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BulkEncoder {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private static final Pattern IMDB_ID = Pattern.compile("tt\\d+");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String index;
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(JsonNode record) throws IOException;
+    }
+
+    public BulkEncoder(String index) {
+        this.index = index;
+    }
+
+    public void encode(Path srcPath, OutputStream os) throws IOException {
+        try (JsonGenerator gen = createGenerator(os)) {
+            forEachRecord(srcPath, record -> write(gen, record));
+        }
+    }
+
+    public JsonGenerator createGenerator(OutputStream os) throws IOException {
+        JsonGenerator gen = om.getFactory().createGenerator(os, JsonEncoding.UTF8);
+        gen.setPrettyPrinter(new MinimalPrettyPrinter(""));
+
+        return gen;
+    }
+
+    public void write(JsonGenerator gen, JsonNode record) throws IOException {
+        gen.writeStartObject();
+        gen.writeObjectFieldStart(isTombstone(record) ? "delete" : "index");
+        gen.writeStringField("_index", index);
+        gen.writeStringField("_type", "_doc");
+        gen.writeStringField("_id", getDocumentId(record));
+        gen.writeEndObject();
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+
+        if (!isTombstone(record)) {
+            gen.writeTree(record);
+            gen.writeRaw('\n');
+        }
+    }
+
+    public void index(Path srcPath, BulkIndexer indexer) throws IOException {
+        forEachRecord(srcPath, record -> index(record, indexer));
+    }
+
+    public void index(JsonNode record, BulkIndexer indexer) throws IOException {
+        if (isTombstone(record)) {
+            indexer.add(new DeleteRequest(index, "_doc", getDocumentId(record)));
+        } else {
+            indexer.add(new IndexRequest(index, "_doc", getDocumentId(record))
+                    .source(om.writeValueAsBytes(record), XContentType.JSON));
+        }
+    }
+
+    public static boolean isTombstone(JsonNode record) {
+        return record.path("deleted").asBoolean(false);
+    }
+
+    public static void forEachRecord(Path srcPath, RecordConsumer consumer) throws IOException {
+        try (JsonParser parser = om.getFactory().createParser(srcPath.toFile())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of records in " + srcPath + ".");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(om.readTree(parser));
+            }
+        }
+    }
+
+    public static String getDocumentId(JsonNode record) throws IOException {
+        JsonNode url = record.get("url");
+        if (url != null && url.isTextual()) {
+            Matcher m = IMDB_ID.matcher(url.textValue());
+            if (m.find()) {
+                return m.group();
+            }
+        }
+
+        JsonNode id = record.get("id");
+        if (id != null && id.isValueNode()) {
+            return id.asText();
+        }
+
+        return sha1(om.writeValueAsBytes(record));
+    }
+
+    private static String sha1(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+                hex[2 * i + 1] = HEX[digest[i] & 0xf];
+            }
+
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package sk.stuba.fiit.util;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+
+import sk.stuba.fiit.metrics.Metrics;
+
+public class BulkIndexer implements Closeable {
+
+    private final BulkProcessor processor;
+    private final BulkStats stats = new BulkStats();
+
+    public BulkIndexer(Client client) {
+        this(client, 4, 5_000, new ByteSizeValue(5, ByteSizeUnit.MB), 8);
+    }
+
+    public BulkIndexer(Client client, int concurrentRequests, int bulkActions, ByteSizeValue bulkSize, int maxRetries) {
+        this.processor = BulkProcessor.builder(client, new StatsListener())//
+                .setConcurrentRequests(concurrentRequests)//
+                .setBulkActions(bulkActions)//
+                .setBulkSize(bulkSize)//
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(100), maxRetries))//
+                .build();
+    }
+
+    public void add(DocWriteRequest<?> request) {
+        processor.add(request);
+    }
+
+    public void addBulk(byte[] bulkBytes) throws Exception {
+        processor.add(new BytesArray(bulkBytes), null, null, XContentType.JSON);
+    }
+
+    public void flush() {
+        processor.flush();
+    }
+
+    public BulkStats getStats() {
+        return stats;
+    }
+
+    public boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+        return processor.awaitClose(timeout, unit);
+    }
+
+    @Override
+    public void close() {
+        try {
+            processor.awaitClose(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class StatsListener implements BulkProcessor.Listener {
+
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            int failed = 0;
+            int rejected = 0;
+
+            for (BulkItemResponse item : response.getItems()) {
+                if (!item.isFailed()) {
+                    continue;
+                }
+
+                if (item.status() == RestStatus.TOO_MANY_REQUESTS) {
+                    rejected++;
+                } else {
+                    failed++;
+                    System.out.println("Failed to index " + item.getId() + ": " + item.getFailureMessage());
+                }
+            }
+
+            stats.recordBulk(request.numberOfActions() - failed - rejected, request.estimatedSizeInBytes(),
+                    response.getTook().millis());
+            stats.recordFailed(failed);
+            stats.recordRejected(rejected);
+
+            Metrics.counter("bulk.docs").add(request.numberOfActions() - failed - rejected);
+            Metrics.counter("bulk.bytes").add(request.estimatedSizeInBytes());
+            Metrics.counter("bulk.failed").add(failed);
+            Metrics.counter("bulk.rejected").add(rejected);
+            Metrics.histogram("bulk.took").record(TimeUnit.MILLISECONDS.toNanos(response.getTook().millis()));
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            stats.recordFailed(request.numberOfActions());
+            Metrics.counter("bulk.failed").add(request.numberOfActions());
+            failure.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package sk.stuba.fiit.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BulkStats {
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong bulks = new AtomicLong();
+    private final AtomicLong docs = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong tookMillis = new AtomicLong();
+
+    void recordBulk(int indexedDocs, long bulkBytes, long took) {
+        bulks.incrementAndGet();
+        docs.addAndGet(indexedDocs);
+        bytes.addAndGet(bulkBytes);
+        tookMillis.addAndGet(took);
+    }
+
+    void recordFailed(int count) {
+        failed.addAndGet(count);
+    }
+
+    void recordRejected(int count) {
+        rejected.addAndGet(count);
+    }
+
+    public long getBulks() {
+        return bulks.get();
+    }
+
+    public long getDocs() {
+        return docs.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public double getDocsPerSecond() {
+        return docs.get() / getElapsedSeconds();
+    }
+
+    public double getMegabytesPerSecond() {
+        return bytes.get() / (1024.0 * 1024.0) / getElapsedSeconds();
+    }
+
+    private double getElapsedSeconds() {
+        return Math.max(1, System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        long bulkCount = bulks.get();
+        return String.format("Indexed %d docs in %d bulks (%.1f docs/s, %.2f MB/s, avg took %d ms), %d failed, %d rejected.",
+                docs.get(), bulkCount, getDocsPerSecond(), getMegabytesPerSecond(),
+                bulkCount == 0 ? 0 : tookMillis.get() / bulkCount, failed.get(), rejected.get());
+    }
+}
@@ -1,76 +1,223 @@
 package sk.stuba.fiit.util;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.client.transport.TransportClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.transport.client.PreBuiltTransportClient;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import sk.stuba.fiit.link.LoadWatermark;
+import sk.stuba.fiit.link.ParsedRecords;
+import sk.stuba.fiit.sink.BulkFileSink;
+import sk.stuba.fiit.sink.ElasticSink;
+import sk.stuba.fiit.sink.RecordBatcher;
 
 public class ElasticUtils {
 
-    private static final ObjectMapper om = new ObjectMapper();
+    private static final String DEFAULT_INDEX = "title";
+    private static final String MANIFEST_SUFFIX = "manifest.tsv";
+    private static final Pattern BULK_FILE = Pattern.compile("(.*?)(\\d+)_bulk\\.json");
 
-    private static int bulkId = 1;
+    private final int concurrentRequests;
+    private final int bulkActions;
+    private final ByteSizeValue bulkSize;
+    private final int maxRetries;
+
+    public ElasticUtils() {
+        this(4, 5_000, new ByteSizeValue(5, ByteSizeUnit.MB), 8);
+    }
+
+    public ElasticUtils(int concurrentRequests, int bulkActions, ByteSizeValue bulkSize, int maxRetries) {
+        this.concurrentRequests = concurrentRequests;
+        this.bulkActions = bulkActions;
+        this.bulkSize = bulkSize;
+        this.maxRetries = maxRetries;
+    }
 
     public void loadBulksToElastic(Path srcDir) throws IOException {
+        TransportClient client = createClient();
+
+        BulkIndexer indexer = new BulkIndexer(client, concurrentRequests, bulkActions, bulkSize, maxRetries);
+        try (Stream<Path> files = Files.walk(srcDir, 1)) {
+            files.filter(v -> Files.isRegularFile(v))//
+                    .sorted(Comparator.comparing(ElasticUtils::getBulkPrefix)
+                            .thenComparingInt(ElasticUtils::getBulkNumber))//
+                    .forEach(v -> {
+                        try {
+                            indexer.addBulk(Files.readAllBytes(v));
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    });
+        } finally {
+            indexer.close();
+            client.close();
+        }
 
-        TransportClient client = new PreBuiltTransportClient(Settings.EMPTY)
-                .addTransportAddress(new TransportAddress(InetAddress.getByName("localhost"), 9300));
+        System.out.println(indexer.getStats());
+    }
+
+    public void loadParsedToElastic(Path srcDir, String index) throws IOException {
+        List<String> prefixes = getManifestPrefixes(srcDir);
+        if (!prefixes.isEmpty()) {
+            for (String prefix : prefixes) {
+                loadParsedToElastic(srcDir, prefix, index);
+            }
+            return;
+        }
+
+        TransportClient client = createClient();
+        BulkEncoder encoder = new BulkEncoder(index);
+
+        BulkIndexer indexer = new BulkIndexer(client, concurrentRequests, bulkActions, bulkSize, maxRetries);
+        try (Stream<Path> files = Files.walk(srcDir, 1)) {
+            files.filter(v -> Files.isRegularFile(v) && v.toString().endsWith(".json"))//
+                    .sorted()//
+                    .forEach(v -> {
+                        try {
+                            encoder.index(v, indexer);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    });
+        } finally {
+            indexer.close();
+            client.close();
+        }
+
+        System.out.println(indexer.getStats());
+    }
+
+    public void loadParsedToElastic(Path srcDir, String filePrefix, String index) throws IOException {
+        LoadWatermark loaded = LoadWatermark.open(srcDir, filePrefix, index);
+        LoadWatermark latest = loaded.latest();
+        if (!loaded.isBehind(latest)) {
+            return;
+        }
+
+        TransportClient client = createClient();
+        BulkEncoder encoder = new BulkEncoder(index);
+
+        BulkIndexer indexer = new BulkIndexer(client, concurrentRequests, bulkActions, bulkSize, maxRetries);
+        try {
+            ParsedRecords.forEachLive(srcDir, filePrefix, loaded.getRecords(), latest.getRecords(),
+                    record -> encoder.index(record, indexer));
+            ParsedRecords.forEachDeleted(srcDir, filePrefix, loaded.getTombstones(), latest.getTombstones(),
+                    record -> encoder.index(record, indexer));
+        } finally {
+            indexer.close();
+            client.close();
+        }
+
+        System.out.println(indexer.getStats());
 
-        Files.walk(srcDir, 1)//
-                .filter(v -> Files.isRegularFile(v))//
-                .forEach(v -> {
-                    BulkRequestBuilder bulkRequest = client.prepareBulk();
-                    try {
-                        byte[] fileBytes = IOUtils.readFile(v).getBytes();
-                        bulkRequest.add(fileBytes, 0, fileBytes.length, XContentType.JSON);
-                        bulkRequest.execute();
-
-                        Thread.currentThread().sleep(5_000);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                });
-
-        client.close();
+        if (indexer.getStats().getFailed() > 0 || indexer.getStats().getRejected() > 0) {
+            System.out.println("Keeping " + filePrefix + " load watermark at " + loaded + ", some documents failed.");
+        } else {
+            latest.save();
+        }
+    }
+
+    public ElasticSink createSink(String index) throws IOException {
+        TransportClient client = createClient();
+
+        return new ElasticSink(index, new BulkIndexer(client, concurrentRequests, bulkActions, bulkSize, maxRetries),
+                client);
+    }
+
+    private TransportClient createClient() throws IOException {
+        return new PreBuiltTransportClient(Settings.EMPTY)
+                .addTransportAddress(new TransportAddress(InetAddress.getByName("localhost"), 9300));
     }
 
     public void prepareBulkJsons(Path srcDir, Path destDir) throws IOException {
-        Files.walk(srcDir, 1)//
-                .filter(v -> Files.isRegularFile(v))//
-                .forEach(v -> {
-                    try {
-                        prepareBulkJson(v, destDir);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                });
+        prepareBulkJsons(srcDir, destDir, DEFAULT_INDEX);
     }
 
-    public void prepareBulkJson(Path srcPath, Path destPath) throws IOException {
-        ArrayNode an = (ArrayNode) om.readTree(IOUtils.readFile(srcPath));
-        StringBuilder sb = new StringBuilder();
+    public void prepareBulkJsons(Path srcDir, Path destDir, String index) throws IOException {
+        List<String> prefixes = getManifestPrefixes(srcDir);
+        if (!prefixes.isEmpty()) {
+            for (String prefix : prefixes) {
+                prepareBulkJsons(srcDir, prefix, destDir, index);
+            }
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(srcDir, 1)) {
+            files.filter(v -> Files.isRegularFile(v) && v.toString().endsWith(".json"))//
+                    .forEach(v -> {
+                        try {
+                            prepareBulkJson(v, destDir, index);
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    });
+        }
+    }
 
-        String bulkRow = "{ \"index\" : { \"_index\" : \"title\", \"_type\" : \"_doc\", \"_id\" : \"REPLACE\" } }";
+    public void prepareBulkJsons(Path srcDir, String filePrefix, Path destDir, String index) throws IOException {
+        LoadWatermark prepared = LoadWatermark.open(srcDir, filePrefix, "bulk_" + index);
+        LoadWatermark latest = prepared.latest();
+        if (!prepared.isBehind(latest)) {
+            return;
+        }
 
-        for (JsonNode n : an) {
-            sb.append(bulkRow.replaceAll("REPLACE", String.valueOf(bulkId++)));
-            sb.append("\n");
-            sb.append(n.toString());
-            sb.append("\n");
+        try (BulkFileSink sink = new BulkFileSink(destDir, filePrefix, bulkActions, index);
+                RecordBatcher batcher = new RecordBatcher(sink, bulkActions)) {
+            ParsedRecords.forEachLive(srcDir, filePrefix, prepared.getRecords(), latest.getRecords(), batcher::add);
+            ParsedRecords.forEachDeleted(srcDir, filePrefix, prepared.getTombstones(), latest.getTombstones(),
+                    batcher::add);
         }
 
-        String fileName = srcPath.getFileName().toString().replaceAll(".json", "");
-        IOUtils.writeToFile(destPath.resolve(fileName + "_bulk.json"), sb.toString());
+        latest.save();
+    }
+
+    private static String getBulkPrefix(Path file) {
+        Matcher m = BULK_FILE.matcher(file.getFileName().toString());
+
+        return m.matches() ? m.group(1) : file.getFileName().toString();
+    }
+
+    private static int getBulkNumber(Path file) {
+        Matcher m = BULK_FILE.matcher(file.getFileName().toString());
+
+        return m.matches() ? Integer.parseInt(m.group(2)) : 0;
+    }
+
+    private static List<String> getManifestPrefixes(Path srcDir) throws IOException {
+        try (Stream<Path> files = Files.list(srcDir)) {
+            return files.map(v -> v.getFileName().toString())//
+                    .filter(v -> v.endsWith(MANIFEST_SUFFIX))//
+                    .map(v -> v.substring(0, v.length() - MANIFEST_SUFFIX.length()))//
+                    .sorted()//
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public void prepareBulkJson(Path srcPath, Path destPath) throws IOException {
+        prepareBulkJson(srcPath, destPath, DEFAULT_INDEX);
+    }
+
+    public void prepareBulkJson(Path srcPath, Path destPath, String index) throws IOException {
+        String fileName = srcPath.getFileName().toString().replaceAll("\\.json$", "");
+
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(destPath.resolve(fileName + "_bulk.json")),
+                64 * 1024)) {
+            new BulkEncoder(index).encode(srcPath, os);
+        }
     }
 }
@@ -1,42 +1,89 @@
 package sk.stuba.fiit.util;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Optional;
 
-import org.apache.commons.io.FileUtils;
+import sk.stuba.fiit.metrics.Counter;
+import sk.stuba.fiit.metrics.Metrics;
 
 public class IOUtils {
 
-    public static void writeToFile(Path p, String s) {
+    private static final int BUFFER_SIZE = 64 * 1024;
 
-        System.out.println("Writing to file " + p + " ...");
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
 
-        try (BufferedWriter bw = Files.newBufferedWriter(p)) {
-            bw.append(s);
-        } catch (IOException e) {
-            e.printStackTrace();
+    private static final Counter FILES_WRITTEN = Metrics.counter("io.files.written");
+    private static final Counter FILES_READ = Metrics.counter("io.files.read");
+    private static final Counter BYTES_READ = Metrics.counter("io.bytes.read");
+
+    public static void writeToFile(Path p, String s) throws IOException {
+        writeToFile(p, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void writeToFile(Path p, byte[] content) throws IOException {
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bb = ByteBuffer.wrap(content);
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
         }
+
+        FILES_WRITTEN.inc();
     }
-    
-    public static String readFile(Path p) {
-        String result = "";
 
-        System.out.println("Reading file " + p + " ...");
+    public static String readFile(Path p) throws IOException {
+        return new String(readBytes(p), StandardCharsets.UTF_8);
+    }
+
+    public static Optional<String> readFileOptional(Path p) throws IOException {
+        return readBytesOptional(p).map(v -> new String(v, StandardCharsets.UTF_8));
+    }
 
+    public static Optional<byte[]> readBytesOptional(Path p) throws IOException {
         try {
-            result = FileUtils.readFileToString(p.toFile());
-        } catch (IOException e) {
-            System.out.println("Was not able to read file " + p + ".");
+            return Optional.of(readBytes(p));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
         }
-
-        return result;
     }
 
-    public static Optional<String> readFileOptional(Path p) {
-        String result = readFile(p);
-        return result != "" ? Optional.of(result) : Optional.empty();
+    public static byte[] readBytes(Path p) throws IOException {
+        try (FileChannel channel = FileChannel.open(p, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File " + p + " is too large to read into memory (" + size + " bytes).");
+            }
+
+            byte[] content = new byte[(int) size];
+            ByteBuffer buffer = BUFFERS.get();
+
+            int read = 0;
+            while (read < content.length) {
+                buffer.clear();
+                buffer.limit(Math.min(buffer.capacity(), content.length - read));
+
+                int n = channel.read(buffer);
+                if (n < 0) {
+                    throw new IOException("File " + p + " was truncated while reading.");
+                }
+
+                buffer.flip();
+                buffer.get(content, read, n);
+                read += n;
+            }
+
+            FILES_READ.inc();
+            BYTES_READ.add(read);
+
+            return content;
+        }
     }
 }
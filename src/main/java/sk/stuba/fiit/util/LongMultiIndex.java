@@ -0,0 +1,116 @@
+package sk.stuba.fiit.util;
+
+import java.util.Arrays;
+
+public class LongMultiIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private boolean[] used;
+    private int[][] ids;
+    private int[] sizes;
+    private int mask;
+    private int size;
+
+    public LongMultiIndex(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedKeys / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public void add(long key, int id) {
+        int slot = findSlot(key);
+
+        if (!used[slot]) {
+            if (size + 1 > keys.length * LOAD_FACTOR) {
+                rehash();
+                slot = findSlot(key);
+            }
+
+            used[slot] = true;
+            keys[slot] = key;
+            ids[slot] = new int[2];
+            size++;
+        } else if (sizes[slot] > 0 && ids[slot][sizes[slot] - 1] == id) {
+            return;
+        } else if (sizes[slot] == ids[slot].length) {
+            ids[slot] = Arrays.copyOf(ids[slot], sizes[slot] * 2);
+        }
+
+        ids[slot][sizes[slot]++] = id;
+    }
+
+    public int[] get(long key) {
+        int slot = findSlot(key);
+
+        if (!used[slot]) {
+            return NONE;
+        }
+
+        return ids[slot].length == sizes[slot] ? ids[slot] : Arrays.copyOf(ids[slot], sizes[slot]);
+    }
+
+    public int count(long key) {
+        int slot = findSlot(key);
+
+        return used[slot] ? sizes[slot] : 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void trim() {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot] && ids[slot].length != sizes[slot]) {
+                ids[slot] = Arrays.copyOf(ids[slot], sizes[slot]);
+            }
+        }
+    }
+
+    private int findSlot(long key) {
+        int slot = (int) mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+
+        return key;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        int[][] oldIds = ids;
+        int[] oldSizes = sizes;
+
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = findSlot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+                sizes[slot] = oldSizes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        ids = new int[capacity][];
+        sizes = new int[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,245 @@
+package sk.stuba.fiit.util;
+
+import java.nio.charset.StandardCharsets;
+
+public class SimHash {
+
+    private static final int SHINGLE_SIZE = 2;
+
+    private static final byte[] SCRIPT = ascii("script");
+    private static final byte[] STYLE = ascii("style");
+    private static final byte[] CLOSE_TAG = ascii("</");
+    private static final byte[] COMMENT_OPEN = ascii("<!--");
+    private static final byte[] COMMENT_CLOSE = ascii("-->");
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    public static long fingerprint(byte[] content) {
+        return fingerprint(content, 0, content.length);
+    }
+
+    public static long fingerprint(byte[] content, byte[] startMarker, byte[] endMarker, byte[]... skippedTags) {
+        int from = indexOf(content, startMarker, 0);
+        if (from < 0) {
+            return fingerprint(content, 0, content.length, skippedTags);
+        }
+
+        int to = indexOf(content, endMarker, from);
+        return fingerprint(content, from, to < 0 ? content.length : to, skippedTags);
+    }
+
+    public static long fingerprint(byte[] content, int from, int to, byte[]... skippedTags) {
+        Features features = new Features();
+
+        int i = from;
+        while (i < to) {
+            byte b = content[i];
+
+            if (b == '<') {
+                i = skipMarkup(content, i, to, skippedTags);
+                continue;
+            }
+
+            if (!isTokenByte(b)) {
+                i++;
+                continue;
+            }
+
+            i = features.addToken(content, i, to);
+        }
+
+        return features.toFingerprint();
+    }
+
+    public static long fingerprint(Iterable<String> values) {
+        Features features = new Features();
+
+        for (String value : values) {
+            byte[] content = value.getBytes(StandardCharsets.UTF_8);
+            int i = 0;
+            while (i < content.length) {
+                if (!isTokenByte(content[i])) {
+                    i++;
+                    continue;
+                }
+
+                i = features.addToken(content, i, content.length);
+            }
+        }
+
+        return features.toFingerprint();
+    }
+
+    private static class Features {
+
+        private final int[] weights = new int[64];
+        private final long[] window = new long[SHINGLE_SIZE];
+        private int tokens;
+
+        int addToken(byte[] content, int from, int to) {
+            long h = FNV_OFFSET;
+            int i = from;
+            while (i < to && isTokenByte(content[i])) {
+                h ^= toLowerCase(content[i]) & 0xff;
+                h *= FNV_PRIME;
+                i++;
+            }
+
+            window[tokens % SHINGLE_SIZE] = h;
+            tokens++;
+
+            if (tokens >= SHINGLE_SIZE) {
+                addFeature(weights, getShingleHash(window, tokens));
+            }
+
+            return i;
+        }
+
+        long toFingerprint() {
+            if (tokens > 0 && tokens < SHINGLE_SIZE) {
+                addFeature(weights, getShingleHash(window, tokens));
+            }
+
+            long fingerprint = 0;
+            for (int bit = 0; bit < 64; bit++) {
+                if (weights[bit] > 0) {
+                    fingerprint |= 1L << bit;
+                }
+            }
+
+            return fingerprint;
+        }
+    }
+
+    private static int skipMarkup(byte[] content, int at, int to, byte[][] skippedTags) {
+        if (startsWith(content, at, COMMENT_OPEN)) {
+            int close = indexOf(content, COMMENT_CLOSE, at);
+            return close < 0 || close >= to ? to : close + COMMENT_CLOSE.length;
+        }
+
+        int end = at;
+        while (end < to && content[end] != '>') {
+            end++;
+        }
+
+        byte[] name = getSkippedTag(content, at + 1, skippedTags);
+        if (name == null || content[end - 1] == '/') {
+            return end + 1;
+        }
+
+        int close = indexOfClosingTag(content, name, end);
+        return close < 0 || close >= to ? to : close;
+    }
+
+    private static byte[] getSkippedTag(byte[] content, int at, byte[][] skippedTags) {
+        if (isTagAt(content, at, SCRIPT)) {
+            return SCRIPT;
+        }
+        if (isTagAt(content, at, STYLE)) {
+            return STYLE;
+        }
+        for (byte[] tag : skippedTags) {
+            if (isTagAt(content, at, tag)) {
+                return tag;
+            }
+        }
+
+        return null;
+    }
+
+    private static int indexOfClosingTag(byte[] content, byte[] name, int from) {
+        for (int i = indexOf(content, CLOSE_TAG, from); i >= 0; i = indexOf(content, CLOSE_TAG, i + 1)) {
+            if (isTagAt(content, i + CLOSE_TAG.length, name)) {
+                int end = i;
+                while (end < content.length && content[end] != '>') {
+                    end++;
+                }
+                return end + 1;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean isTagAt(byte[] content, int at, byte[] name) {
+        if (at + name.length >= content.length) {
+            return false;
+        }
+        for (int j = 0; j < name.length; j++) {
+            if (toLowerCase(content[at + j]) != name[j]) {
+                return false;
+            }
+        }
+
+        byte next = content[at + name.length];
+        return next == '>' || next == '/' || next == ' ' || next == '\t' || next == '\n' || next == '\r';
+    }
+
+    private static boolean startsWith(byte[] content, int at, byte[] prefix) {
+        if (at + prefix.length > content.length) {
+            return false;
+        }
+        for (int j = 0; j < prefix.length; j++) {
+            if (content[at + j] != prefix[j]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern, int from) {
+        outer: for (int i = from; i <= content.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (content[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private static long getShingleHash(long[] window, int tokens) {
+        long h = FNV_OFFSET;
+        for (int k = Math.max(0, tokens - SHINGLE_SIZE); k < tokens; k++) {
+            h = (h ^ window[k % SHINGLE_SIZE]) * FNV_PRIME;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return h;
+    }
+
+    private static void addFeature(int[] weights, long hash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((hash >>> bit) & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    private static boolean isTokenByte(byte b) {
+        return b < 0 || (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static byte toLowerCase(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
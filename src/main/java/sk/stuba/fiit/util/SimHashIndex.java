@@ -0,0 +1,103 @@
+package sk.stuba.fiit.util;
+
+import java.util.Arrays;
+
+public class SimHashIndex {
+
+    private static final int MAX_BAND_BITS = 16;
+
+    private final int maxDistance;
+    private final int bands;
+    private final int[] bandShifts;
+    private final long[] bandMasks;
+
+    private final int[][][] buckets;
+    private final int[][] bucketSizes;
+    private long[] fingerprints;
+    private int size;
+
+    public SimHashIndex(int maxDistance, int expectedSize) {
+        if (maxDistance < 0 || maxDistance > 7) {
+            throw new IllegalArgumentException("Maximum distance must be between 0 and 7, was " + maxDistance + ".");
+        }
+
+        this.maxDistance = maxDistance;
+        this.bands = Math.max(maxDistance + 1, 64 / MAX_BAND_BITS);
+        this.bandShifts = new int[bands];
+        this.bandMasks = new long[bands];
+        this.buckets = new int[bands][][];
+        this.bucketSizes = new int[bands][];
+        this.fingerprints = new long[Math.max(16, expectedSize)];
+
+        int shift = 0;
+        for (int band = 0; band < bands; band++) {
+            int bits = 64 / bands + (band < 64 % bands ? 1 : 0);
+
+            bandShifts[band] = shift;
+            bandMasks[band] = (1L << bits) - 1;
+            buckets[band] = new int[1 << bits][];
+            bucketSizes[band] = new int[1 << bits];
+
+            shift += bits;
+        }
+    }
+
+    public synchronized int add(long fingerprint) {
+        if (size == fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, fingerprints.length + (fingerprints.length >> 1));
+        }
+
+        int id = size++;
+        fingerprints[id] = fingerprint;
+
+        for (int band = 0; band < bands; band++) {
+            int bucket = getBucket(fingerprint, band);
+            int[] ids = buckets[band][bucket];
+            int bucketSize = bucketSizes[band][bucket];
+
+            if (ids == null) {
+                ids = buckets[band][bucket] = new int[4];
+            } else if (bucketSize == ids.length) {
+                ids = buckets[band][bucket] = Arrays.copyOf(ids, bucketSize * 2);
+            }
+
+            ids[bucketSize] = id;
+            bucketSizes[band][bucket]++;
+        }
+
+        return id;
+    }
+
+    public synchronized int findNearest(long fingerprint) {
+        int nearest = -1;
+        int nearestDistance = maxDistance + 1;
+
+        for (int band = 0; band < bands; band++) {
+            int bucket = getBucket(fingerprint, band);
+            int[] ids = buckets[band][bucket];
+
+            for (int i = 0; i < bucketSizes[band][bucket]; i++) {
+                int id = ids[i];
+                int distance = SimHash.distance(fingerprint, fingerprints[id]);
+                if (distance < nearestDistance || (distance == nearestDistance && id < nearest)) {
+                    nearest = id;
+                    nearestDistance = distance;
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    public synchronized long getFingerprint(int id) {
+        return fingerprints[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int getBucket(long fingerprint, int band) {
+        return (int) ((fingerprint >>> bandShifts[band]) & bandMasks[band]);
+    }
+}
@@ -0,0 +1,92 @@
+package sk.stuba.fiit.crawl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparseIdScanTest {
+
+    private static final int IDS = 50_000;
+    private static final int CHUNK = 1_000;
+    private static final long TTL = TimeUnit.DAYS.toMillis(30);
+
+    private IdNegativeCache deadIds;
+    private IdNegativeCache rejectedIds;
+
+    @Before
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("sparse-scan");
+        deadIds = IdNegativeCache.open(dir.resolve("dead_ids.bin"), TTL);
+        rejectedIds = IdNegativeCache.open(dir.resolve("rejected_ids.bin"), TTL);
+    }
+
+    @Test
+    public void repeatedRunsConvergeToFullRecall() throws InterruptedException {
+        BitSet live = getLiveIds(new Random(7));
+        BitSet found = new BitSet();
+
+        int firstRunProbes = scan(new SparseIdScan(deadIds, rejectedIds, new BitSet(), 32, 64, new Random(1)), live,
+                found);
+        assertTrue("first run probed " + firstRunProbes + " IDs", firstRunProbes < IDS / 2);
+
+        for (int run = 2; run <= 30 && !found.equals(live); run++) {
+            scan(new SparseIdScan(deadIds, rejectedIds, new BitSet(), 32, 64, new Random(run)), live, found);
+        }
+
+        assertEquals(live.cardinality(), found.cardinality());
+        assertEquals(live, found);
+    }
+
+    @Test
+    public void cachedMissesDoNotWidenStride() throws InterruptedException {
+        for (int id = 0; id < 900; id++) {
+            deadIds.markDead(id);
+        }
+
+        BitSet live = new BitSet();
+        live.set(910);
+        BitSet found = new BitSet();
+
+        scan(new SparseIdScan(deadIds, rejectedIds, new BitSet(), 32, 64, new Random(1)), live, found);
+
+        assertEquals(live, found);
+    }
+
+    private static BitSet getLiveIds(Random random) {
+        BitSet live = new BitSet();
+        for (int id = 0; id < IDS; id++) {
+            double density = (id / CHUNK) % 3 == 0 ? 0.2 : 0.01;
+            if (random.nextDouble() < density) {
+                live.set(id);
+            }
+        }
+
+        return live;
+    }
+
+    private static int scan(SparseIdScan scan, BitSet live, BitSet found) throws InterruptedException {
+        int[] probes = new int[1];
+        for (int from = 0; from < IDS; from += CHUNK) {
+            scan.scan(new IdRange(from, from + CHUNK), id -> {
+                probes[0]++;
+                if (live.get(id)) {
+                    found.set(id);
+                    return SparseIdScan.Result.FOUND;
+                }
+
+                return SparseIdScan.Result.MISSING;
+            });
+        }
+
+        return probes[0];
+    }
+}
@@ -0,0 +1,107 @@
+package sk.stuba.fiit.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import sk.stuba.fiit.util.SimHash;
+
+public class FingerprintTest {
+
+    private static final String TITLE_TEMPLATE = "\"review\": {\"@type\": \"Review\", \"itemReviewed\": {\"@type\":"
+            + " \"CreativeWork\"}, \"author\": {\"@type\": \"Person\"}, \"inLanguage\": \"English\","
+            + " \"reviewRating\": {\"@type\": \"Rating\", \"worstRating\": \"1\", \"bestRating\": \"10\"}}, ";
+    private static final String FILM_TEMPLATE = "<script>googletag.cmd.push(function() { googletag.defineSlot("
+            + "'/csfd/film', [300, 250], 'ad-film').addService(googletag.pubads()); googletag.enableServices(); });"
+            + "</script>\n";
+
+    private byte[] title;
+    private byte[] film;
+
+    @Before
+    public void setUp() throws IOException {
+        title = TestPages.replace(TestPages.read("imdb_title.html"), //
+                "\"duration\"", repeat(TITLE_TEMPLATE, 16) + "\"duration\"");
+        film = TestPages.replace(TestPages.read("csfd_film.html"), //
+                "<div class=\"plots\">", repeat(FILM_TEMPLATE, 16) + "<div class=\"plots\">");
+    }
+
+    @Test
+    public void distinctTitlesSharingTemplateAreNotDuplicates() {
+        byte[] other = TestPages.replace(title, //
+                "/title/tt0111161/", "/title/tt0068646/", //
+                "The Shawshank Redemption", "The Godfather", //
+                "\"Drama\"", "\"Thriller\"", //
+                "Tim Robbins", "Marlon Brando", //
+                "Morgan Freeman", "Al Pacino", //
+                "Frank Darabont", "Francis Ford Coppola", //
+                "Two imprisoned men bond over a number of years, finding solace and eventual redemption through acts"
+                        + " of common decency.",
+                "The aging patriarch of an organized crime dynasty transfers control of his clandestine empire to"
+                        + " his reluctant son.", //
+                "1994-10-14", "1972-03-24", //
+                "wrongful imprisonment,prison,escape from prison,based on the works of stephen king,prison cell",
+                "mafia,crime family,patriarch,gangster,based on novel", //
+                "PT2H22M", "PT2H55M");
+
+        assertDistinct(IMDBParser.fingerprint(title), IMDBParser.fingerprint(other));
+    }
+
+    @Test
+    public void titleBoilerplateDoesNotChangeFingerprint() {
+        byte[] other = TestPages.replace(title, //
+                "\"ratingCount\": 2034567", "\"ratingCount\": 2035012", //
+                "._V1_.jpg", "._V1_UY268_CR9,0,182,268_AL_.jpg", //
+                "<div id=\"wrapper\">", "<div id=\"wrapper\"><script>var ads = { slot: 'top', refresh: 30 };</script>");
+
+        assertEquals(IMDBParser.fingerprint(title), IMDBParser.fingerprint(other));
+    }
+
+    @Test
+    public void distinctFilmsSharingTemplateAreNotDuplicates() {
+        byte[] other = TestPages.replace(film, //
+                "Pelíšky", "Kolja", //
+                "Komedie / Drama / Romantický", "Drama / Komedie", //
+                "1999</span>, 115 min", "1996</span>, 105 min", //
+                "Jan Hřebejk", "Jan Svěrák", //
+                "Petr Šabach", "Pavel Taussig", //
+                "Petr Jarchovský", "Zdeněk Svěrák", //
+                "Miroslav Donutil", "Zdeněk Svěrák", //
+                "Jiří Kodet", "Andrej Chalimon", //
+                "Emília Vášáryová", "Libuše Šafránková", //
+                "Bolek Polívka", "Ondřej Vetchý", //
+                "Eva Holubová", "Stella Zázvorková", //
+                "Příběh se odehrává v Praze na konci šedesátých let. Dvě rodiny bydlí v jedné vile – rodina komunisty"
+                        + " Krause a rodina odbojáře Šebka.",
+                "Starý mládenec a violoncellista František Louka se z nouze ožení s Ruskou, která brzy emigruje"
+                        + " a nechá mu svého malého syna.");
+
+        assertDistinct(CSFDParser.fingerprint(film), CSFDParser.fingerprint(other));
+    }
+
+    @Test
+    public void filmScriptsDoNotChangeFingerprint() {
+        byte[] other = TestPages.replace(film, //
+                "<div class=\"plots\">", "<div class=\"plots\"><script>dataLayer.push({ film: 5954, ab: 'b' });</script>");
+
+        assertEquals(CSFDParser.fingerprint(film), CSFDParser.fingerprint(other));
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+
+        return sb.toString();
+    }
+
+    private static void assertDistinct(long a, long b) {
+        int distance = SimHash.distance(a, b);
+        assertTrue("distance " + distance, distance > DuplicateDetector.DEFAULT_MAX_DISTANCE);
+    }
+}
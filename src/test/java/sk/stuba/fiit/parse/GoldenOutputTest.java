@@ -0,0 +1,36 @@
+package sk.stuba.fiit.parse;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+public class GoldenOutputTest {
+
+    private static final int FILM_ID = 5954;
+
+    @Test
+    public void csfdFilmMatchesGoldenOutput() throws IOException {
+        CSFDParser parser = new CSFDParser(1, 1_000);
+
+        assertEquals(TestPages.golden("csfd_film.json"),
+                parser.parsePage(FILM_ID, TestPages.string("csfd_film.html")).get().toString());
+        assertEquals(TestPages.golden("csfd_film.json"),
+                parser.parsePage(FILM_ID, TestPages.read("csfd_film.html")).get().toString());
+    }
+
+    @Test
+    public void imdbTitleMatchesGoldenOutput() throws IOException {
+        IMDBParser parser = new IMDBParser(1, 1_000);
+        Optional<Document> cast = Optional.of(TestPages.parse("imdb_title_cast.html"));
+        Optional<Document> summary = Optional.of(TestPages.parse("imdb_title_summary.html"));
+
+        assertEquals(TestPages.golden("imdb_title.json"),
+                parser.parseTitle(TestPages.parse("imdb_title.html"), cast, summary).toString());
+        assertEquals(TestPages.golden("imdb_title.json"),
+                parser.parseTitle(TestPages.read("imdb_title.html"), cast, summary).toString());
+    }
+}
@@ -0,0 +1,60 @@
+package sk.stuba.fiit.parse;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TestPages {
+
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private TestPages() {
+    }
+
+    static byte[] read(String name) throws IOException {
+        return readResource("/fixtures/" + name);
+    }
+
+    static String string(String name) throws IOException {
+        return new String(read(name), StandardCharsets.UTF_8);
+    }
+
+    static Document parse(String name) throws IOException {
+        return Jsoup.parse(string(name));
+    }
+
+    static String golden(String name) throws IOException {
+        return om.readTree(readResource("/golden/" + name)).toString();
+    }
+
+    static byte[] replace(byte[] html, String... replacements) {
+        String page = new String(html, StandardCharsets.UTF_8);
+        for (int i = 0; i < replacements.length; i += 2) {
+            assertTrue(replacements[i], page.contains(replacements[i]));
+            page = page.replace(replacements[i], replacements[i + 1]);
+        }
+
+        return page.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readResource(String path) throws IOException {
+        try (InputStream in = TestPages.class.getResourceAsStream(path)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package sk.stuba.fiit.parse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public class TitlePageScannerTest {
+
+    private IMDBParser parser;
+    private byte[] title;
+    private Optional<Document> cast;
+    private Optional<Document> summary;
+
+    @Before
+    public void setUp() throws IOException {
+        parser = new IMDBParser(1, 1_000);
+        title = TestPages.read("imdb_title.html");
+        cast = Optional.of(TestPages.parse("imdb_title_cast.html"));
+        summary = Optional.of(TestPages.parse("imdb_title_summary.html"));
+    }
+
+    @Test
+    public void scannedFixtureMatchesDomExtraction() {
+        assertTrue(TitlePageScanner.scan(title).isPresent());
+        assertEquals(parseDom(title), parser.parseTitle(title, cast, summary));
+    }
+
+    @Test
+    public void changedHeadingFallsBackToDomExtraction() {
+        byte[] changed = TestPages.replace(title, "Budget:</h4>", "Budget: </h4>");
+
+        assertFalse(TitlePageScanner.scan(changed).isPresent());
+        JsonNode expected = parseDom(changed);
+        assertEquals(expected, parser.parseTitle(changed, cast, summary));
+        assertEquals(parseDom(title).path("budget"), expected.path("budget"));
+    }
+
+    @Test
+    public void changedAttributeFallsBackToDomExtraction() {
+        byte[] changed = TestPages.replace(title, "id=\"trivia\"", "id = \"trivia\"");
+
+        assertFalse(TitlePageScanner.scan(changed).isPresent());
+        assertEquals(parseDom(changed), parser.parseTitle(changed, cast, summary));
+    }
+
+    private JsonNode parseDom(byte[] html) {
+        return parser.parseTitle(Jsoup.parse(new String(html, StandardCharsets.UTF_8)), cast, summary);
+    }
+}